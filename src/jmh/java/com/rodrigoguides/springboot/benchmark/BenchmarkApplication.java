@@ -0,0 +1,63 @@
+package com.rodrigoguides.springboot.benchmark;
+
+import com.rodrigoguides.springboot.SpringBootTestingApplication;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+//boots the application against an in-memory H2 database standing in for MySQL
+final class BenchmarkApplication {
+
+    static final int EMPLOYEES = 10_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... args) {
+        String[] defaults = {
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"
+        };
+        return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run(Stream.concat(Stream.of(defaults), Stream.of(args)).toArray(String[]::new));
+    }
+
+    //inserts EMPLOYEES rows and returns their ids
+    static long[] seed(EmployeeService employeeService) {
+        long[] ids = new long[EMPLOYEES];
+        int next = 0;
+        for (int from = 0; from < EMPLOYEES; from += 1000) {
+            for (EmployeeBatchResult result : employeeService.saveEmployees(employees(from, 1000, "seed"))) {
+                ids[next++] = result.getEmployee().getId();
+            }
+        }
+        return ids;
+    }
+
+    static List<Employee> employees(int from, int count, String prefix) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            employees.add(Employee.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .email(prefix + "." + i + "@gmail.com")
+                    .build());
+        }
+        return employees;
+    }
+}
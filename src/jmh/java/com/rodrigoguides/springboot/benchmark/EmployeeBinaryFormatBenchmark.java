@@ -0,0 +1,69 @@
+package com.rodrigoguides.springboot.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rodrigoguides.springboot.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//encode/decode of a list of employees in each format the controller can negotiate, built the way BinaryFormatConfig
+//builds them. encodeEmployeeList:encodedBytes is the payload size of the format: each iteration line shows it, the
+//summary row adds up its Cnt iterations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeBinaryFormatBenchmark {
+
+    private static final TypeReference<List<Employee>> EMPLOYEE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+
+    private List<Employee> employees;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        JsonFactory factory = "cbor".equals(format) ? new CBORFactory() : "smile".equals(format) ? new SmileFactory() : new JsonFactory();
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        employees = BenchmarkApplication.employees(0, 1000, "binary");
+        for (int i = 0; i < employees.size(); i++) {
+            employees.get(i).setId(i + 1);
+        }
+        encoded = objectMapper.writeValueAsBytes(employees);
+    }
+
+    //EVENTS are reported as they are, not per second, so the size set by the last call of the iteration
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long encodedBytes;
+    }
+
+    @Benchmark
+    public byte[] encodeEmployeeList(PayloadSize payloadSize) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(employees);
+        payloadSize.encodedBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<Employee> decodeEmployeeList() throws IOException {
+        return objectMapper.readValue(encoded, EMPLOYEE_LIST);
+    }
+}
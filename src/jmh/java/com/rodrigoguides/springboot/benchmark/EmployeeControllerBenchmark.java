@@ -0,0 +1,91 @@
+package com.rodrigoguides.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//full EmployeeController request handling (dispatch, binding, service, Jackson) through MockMvc over H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeControllerBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    private long[] ids;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        employeeService = context.getBean(EmployeeService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        ids = BenchmarkApplication.seed(employeeService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getEmployeeById() throws Exception {
+        return mockMvc.perform(get("/api/employees/{id}", ids[ThreadLocalRandom.current().nextInt(ids.length)]))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getEmployeesPage() throws Exception {
+        return mockMvc.perform(get("/api/employees/page")
+                        .param("after", String.valueOf(ids[ThreadLocalRandom.current().nextInt(ids.length)])))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getAllEmployees() throws Exception {
+        return mockMvc.perform(get("/api/employees"))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    //delete right away through the service to keep the table size stable across iterations
+    @Benchmark
+    public byte[] createEmployee() throws Exception {
+        long next = sequence.incrementAndGet();
+        Employee employee = Employee.builder()
+                .firstName("First" + next)
+                .lastName("Last" + next)
+                .email("controller." + next + "@gmail.com")
+                .build();
+        byte[] response = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(employee)))
+                .andReturn().getResponse().getContentAsByteArray();
+        employeeService.deleteEmployee(objectMapper.readValue(response, Employee.class).getId());
+        return response;
+    }
+}
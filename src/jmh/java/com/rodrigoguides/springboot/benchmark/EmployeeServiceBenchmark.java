@@ -0,0 +1,80 @@
+package com.rodrigoguides.springboot.benchmark;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeePage;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//EmployeeServiceImpl through its Spring proxies (cache, transactions) over H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"caffeine", "none"})
+    public String cacheType;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private long[] ids;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "--spring.cache.type=" + cacheType);
+        employeeService = context.getBean(EmployeeService.class);
+        ids = BenchmarkApplication.seed(employeeService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Employee> getEmployeeById() {
+        return employeeService.getEmployeeById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public Optional<Employee> getEmployeeByEmail() {
+        return employeeService.getEmployeeByEmail("seed." + ThreadLocalRandom.current().nextInt(ids.length) + "@gmail.com");
+    }
+
+    @Benchmark
+    public EmployeePage getEmployees() {
+        return employeeService.getEmployees(ids[ThreadLocalRandom.current().nextInt(ids.length)], EmployeeService.DEFAULT_PAGE_SIZE);
+    }
+
+    //seeded names are "First<n>", so this prefix matches about one in ten employees
+    @Benchmark
+    public List<Employee> searchEmployees() {
+        return employeeService.searchEmployees("first" + ThreadLocalRandom.current().nextInt(1, 10), 20);
+    }
+
+    //delete right away to keep the table size stable across iterations
+    @Benchmark
+    public boolean saveAndDeleteEmployee() {
+        long next = sequence.incrementAndGet();
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("First" + next)
+                .lastName("Last" + next)
+                .email("service." + next + "@gmail.com")
+                .build());
+        return employeeService.deleteEmployee(employee.getId());
+    }
+}
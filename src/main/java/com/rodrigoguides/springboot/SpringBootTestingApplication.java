@@ -2,12 +2,27 @@ package com.rodrigoguides.springboot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 
 @SpringBootApplication
 public class SpringBootTestingApplication {
 
+	//startup steps kept for /actuator/startup, later steps are dropped once the buffer is full
+	static final int STARTUP_STEPS_CAPACITY = 4096;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBootTestingApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringBootTestingApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+
+		//training run for the class data sharing archive (see the cds profile in pom.xml): stop as soon as the
+		//context is refreshed. halt, because a shutdown hook would wait for the refresh that is still running
+		if (Boolean.getBoolean("app.exit-on-refresh")) {
+			application.addListeners((ApplicationListener<ContextRefreshedEvent>) event -> Runtime.getRuntime().halt(0));
+		}
+
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,106 @@
+package com.rodrigoguides.springboot.config;
+
+import com.rodrigoguides.springboot.datasource.ReplicaDataSourceProperties;
+import com.rodrigoguides.springboot.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//only active when at least one replica is configured, e.g.
+//app.datasource.replicas[0].url=jdbc:mysql://replica-1:3306/ems
+//the primary keeps using spring.datasource.* and spring.datasource.hikari.*
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@Import(ReplicaDataSourceConfig.ReplicaDataSourceRegistrar.class)
+public class ReplicaDataSourceConfig {
+
+    //qualifier of the replica pool beans, replicaDataSource0, replicaDataSource1, ...
+    public static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                      @Qualifier(REPLICA) List<HikariDataSource> replicas,
+                                                      ReplicaDataSourceProperties properties) {
+        return new ReplicaRoutingDataSource(primaryDataSource, new ArrayList<>(replicas), properties.getReadYourWritesWindow(),
+                properties.getReadYourWritesMaxClients());
+    }
+
+    //the routing decision has to wait for the first statement, when the transaction's read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    //one HikariDataSource bean per replica, so they get the hikaricp.* metrics, the health check and are closed with
+    //the context like the primary. The list is only known from the environment, hence a registrar and not @Bean methods
+    static class ReplicaDataSourceRegistrar implements ImportBeanDefinitionRegistrar, EnvironmentAware {
+
+        private Environment environment;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+            Binder binder = Binder.get(environment);
+            List<ReplicaDataSourceProperties.Replica> replicas = binder
+                    .bind("app.datasource.replicas", Bindable.listOf(ReplicaDataSourceProperties.Replica.class))
+                    .orElse(List.of());
+            for (int i = 0; i < replicas.size(); i++) {
+                ReplicaDataSourceProperties.Replica replica = replicas.get(i);
+                String poolName = "replica-" + i;
+                GenericBeanDefinition definition = new GenericBeanDefinition();
+                definition.setBeanClass(HikariDataSource.class);
+                definition.setInstanceSupplier(() -> replicaDataSource(binder, poolName, replica));
+                definition.addQualifier(new AutowireCandidateQualifier(Qualifier.class, REPLICA));
+                registry.registerBeanDefinition("replicaDataSource" + i, definition);
+            }
+        }
+
+        //spring.datasource.hikari.* as for the primary, then the replica's own connection settings
+        private static HikariDataSource replicaDataSource(Binder binder, String poolName, ReplicaDataSourceProperties.Replica replica) {
+            HikariDataSource dataSource = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName(poolName);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            if (replica.getMaximumPoolSize() != null) {
+                dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            }
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+    }
+}
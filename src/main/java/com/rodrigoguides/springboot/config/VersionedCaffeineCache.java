@@ -0,0 +1,123 @@
+package com.rodrigoguides.springboot.config;
+
+import com.rodrigoguides.springboot.model.Employee;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+
+//a Caffeine cache that is never left on an older row than the database. Writes put and evict after their commit
+//(see CacheConfig), which a load that read the row before the commit could otherwise overwrite for the whole
+//expiry: a load only stores its row when no write touched the key (or a key sharing its stripe) while it ran, and a
+//put never replaces a newer @Version, for concurrent writes putting in a different order than they committed
+public class VersionedCaffeineCache extends CaffeineCache {
+
+    private static final int STRIPES = 64;
+
+    //bumped by every write to the cache, guarded by itself
+    private final long[] generations = new long[STRIPES];
+
+    public VersionedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        super(name, cache);
+    }
+
+    //misses of @Cacheable(sync = true). The loader runs without a lock (it coalesces concurrent misses itself) and
+    //an empty result is not stored, an employee created later must not stay missing
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        long generation;
+        synchronized (generations) {
+            generation = generations[stripe(key)];
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            synchronized (generations) {
+                if (generations[stripe(key)] == generation) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        synchronized (generations) {
+            generations[stripe(key)]++;
+            store(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        synchronized (generations) {
+            generations[stripe(key)]++;
+            return super.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        synchronized (generations) {
+            generations[stripe(key)]++;
+            super.evict(key);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        synchronized (generations) {
+            generations[stripe(key)]++;
+            return super.evictIfPresent(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (generations) {
+            bumpAll();
+            super.clear();
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        synchronized (generations) {
+            bumpAll();
+            return super.invalidate();
+        }
+    }
+
+    private void bumpAll() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            generations[stripe]++;
+        }
+    }
+
+    private void store(Object key, @Nullable Object value) {
+        getNativeCache().asMap().merge(key, toStoreValue(value), VersionedCaffeineCache::newer);
+    }
+
+    private static Object newer(Object current, Object given) {
+        if (current instanceof Employee && given instanceof Employee
+                && ((Employee) current).getVersion() > ((Employee) given).getVersion()) {
+            return current;
+        }
+        return given;
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+}
@@ -0,0 +1,66 @@
+package com.rodrigoguides.springboot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//opt-in with app.virtual-threads.enabled=true: Tomcat requests and MVC async work (e.g. the export stream)
+//run on virtual threads, so a request waiting on MySQL no longer holds a platform thread.
+//Needs a Java 21+ runtime, the code itself still compiles for the Java 11 baseline. On an older runtime the opt-in
+//is ignored with a warning and the application starts on the usual platform thread pools.
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+@Conditional(VirtualThreadConfig.OnVirtualThreadRuntime.class)
+public class VirtualThreadConfig {
+
+    static final int MIN_JAVA_VERSION = 21;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    //evaluated after the property condition, so the warning only shows up when virtual threads were asked for
+    static class OnVirtualThreadRuntime extends SpringBootCondition {
+
+        private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (Runtime.version().feature() >= MIN_JAVA_VERSION) {
+                return ConditionOutcome.match("Java " + Runtime.version().feature() + " has virtual threads");
+            }
+            log.warn("app.virtual-threads.enabled needs Java {} or newer, running on {}: staying on platform threads",
+                    MIN_JAVA_VERSION, Runtime.version());
+            return ConditionOutcome.noMatch("Java " + Runtime.version().feature() + " has no virtual threads");
+        }
+    }
+}
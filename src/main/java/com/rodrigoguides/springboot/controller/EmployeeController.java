@@ -1,20 +1,52 @@
 package com.rodrigoguides.springboot.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeePage;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.repository.EmployeeRepositoryCustom;
 import com.rodrigoguides.springboot.service.EmployeeService;
+import com.rodrigoguides.springboot.stream.EmployeeChangeBroadcaster;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeController {
+    static final int EXPORT_FLUSH_SIZE = EmployeeRepository.EXPORT_FETCH_SIZE;
+
     private EmployeeService employeeService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    private ObjectMapper objectMapper;
+
+    private EmployeeChangeBroadcaster changeBroadcaster;
+
+    public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper, EmployeeChangeBroadcaster changeBroadcaster) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.changeBroadcaster = changeBroadcaster;
     }
 
     @PostMapping
@@ -23,35 +55,222 @@ public class EmployeeController {
         return employeeService.saveEmployee(employee);
     }
 
+    @PostMapping("batch")
+    public List<EmployeeBatchResult> createEmployees(@RequestBody List<Employee> employees) {
+        return employeeService.saveEmployees(employees);
+    }
+
+    //at most MAX_PAGE_SIZE employees; a full page has a Link header (rel="next") to the following one, ?after=<last id>
     @GetMapping
-    List<Employee> getAllEmployees() {
-        return employeeService.getAllEmployees();
+    ResponseEntity<List<Employee>> getAllEmployees(@RequestParam(value = "after", required = false) Long after) {
+        List<Employee> employees = after == null
+                ? employeeService.getAllEmployees()
+                : employeeService.getEmployees(after, EmployeeService.MAX_PAGE_SIZE).getContent();
+        if (employees.size() < EmployeeService.MAX_PAGE_SIZE) {
+            return ResponseEntity.ok(employees);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", employees.get(employees.size() - 1).getId())
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(employees);
+    }
+
+    //only the requested columns, e.g. ?fields=id,email, paged like getEmployeesPage
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getEmployeeFields(@RequestParam("fields") List<String> fields,
+                                                                       @RequestParam(value = "after", defaultValue = "0") long after,
+                                                                       @RequestParam(value = "limit", defaultValue = "" + EmployeeService.MAX_PAGE_SIZE) int limit) {
+        if (fields.isEmpty() || !EmployeeRepositoryCustom.PROJECTABLE_FIELDS.containsAll(fields)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.getEmployeeFields(fields, after, limit));
+    }
+
+    @GetMapping("page")
+    public EmployeePage getEmployeesPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                         @RequestParam(value = "limit", defaultValue = "" + EmployeeService.DEFAULT_PAGE_SIZE) int limit) {
+        return employeeService.getEmployees(after, limit);
+    }
+
+    //incremental sync: employees created, updated or deleted after the given token, poll with the returned nextToken
+    @GetMapping("changes")
+    public EmployeeChangeFeed getEmployeeChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                 @RequestParam(value = "limit", defaultValue = "" + EmployeeService.DEFAULT_PAGE_SIZE) int limit) {
+        return employeeService.getEmployeeChanges(since, limit);
+    }
+
+    //Server-Sent Events with every committed create, update and delete, instead of polling; 503 when the
+    //subscriber limit is reached
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEmployeeChanges() {
+        return changeBroadcaster.subscribe()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    //newline-delimited JSON, written row by row while the employees are streamed from the database
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            long count = writeEmployees(generator);
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("employees.ndjson").build().toString())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    //the same stream as one JSON array, for clients that can not read NDJSON; never holds the whole list in memory
+    @GetMapping(value = "export", params = "format=json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEmployeesAsArray() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.writeStartArray();
+            writeEmployees(generator);
+            generator.writeEndArray();
+            generator.flush();
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("employees.json").build().toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    //flushes every EXPORT_FLUSH_SIZE employees so the client receives (gzip) chunks while the export is still running
+    private long writeEmployees(JsonGenerator generator) {
+        ObjectWriter writer = objectMapper.writerFor(Employee.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        AtomicLong written = new AtomicLong();
+
+        return employeeService.exportEmployees(employee -> {
+            try {
+                writer.writeValue(generator, employee);
+                if (written.incrementAndGet() % EXPORT_FLUSH_SIZE == 0) {
+                    generator.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long employeeId){
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long employeeId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        //answer pollers from the version column alone when they already have the current representation
+        if (ifNoneMatch != null) {
+            Optional<Long> version = employeeService.getEmployeeVersion(employeeId);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (matchesETag(ifNoneMatch, version.get(), true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(String.valueOf(version.get())).build();
+            }
+        }
+
         return employeeService.getEmployeeById(employeeId)
+                .map(employee -> ResponseEntity.ok().eTag(String.valueOf(employee.getVersion())).body(employee))
+                .orElseGet(()->ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<Employee> getEmployeeByEmail(@RequestParam("email") String email){
+        return employeeService.getEmployeeByEmail(email)
                 .map(ResponseEntity::ok)
                 .orElseGet(()->ResponseEntity.notFound().build());
     }
 
+    //typeahead search, every term is matched as a prefix of a name or email
+    @GetMapping("search")
+    public List<Employee> searchEmployees(@RequestParam("q") String query,
+                                          @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return employeeService.searchEmployees(query, limit);
+    }
+
     @PutMapping("{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long employeeId, @RequestBody Employee employee){
+    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long employeeId, @RequestBody Employee employee,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         return employeeService.getEmployeeById(employeeId)
                 .map(savedEmployee -> {
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
+                    if (ifMatch != null && !matchesETag(ifMatch, savedEmployee.getVersion(), false)) {
+                        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Employee>build();
+                    }
 
-                    Employee updatedEmployee = employeeService.updatedEmployee(savedEmployee);
-                    return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
+                    //a new instance: savedEmployee may be the cached one, shared with every other reader until the
+                    //update commits; the version it was read at still guards the save
+                    Employee changedEmployee = Employee.builder()
+                            .id(savedEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            .version(savedEmployee.getVersion())
+                            .build();
+
+                    Employee updatedEmployee = employeeService.updatedEmployee(changedEmployee);
+                    return ResponseEntity.ok().eTag(String.valueOf(updatedEmployee.getVersion())).body(updatedEmployee);
                 })
                 .orElseGet(()->ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") long employeeId, @RequestBody Employee employee){
+        if (employeeService.patchEmployee(employeeId, employee)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("{id}")
-    public ResponseEntity<String> deleteEmployee (@PathVariable("id") long employeeId){
-        employeeService.deleteEmployee(employeeId);
-        return new ResponseEntity<String>("Employee deleted successfull", HttpStatus.OK);
+    public ResponseEntity<Void> deleteEmployee (@PathVariable("id") long employeeId){
+        if (employeeService.deleteEmployee(employeeId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Void> deleteEmployees(@RequestParam("ids") List<Long> employeeIds){
+        if (employeeService.deleteEmployees(employeeIds) > 0) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    //the employee was changed by someone else between our read and the update: the If-Match the client sent no longer
+    //holds (412), without one it is a plain lost update (409)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleOptimisticLockingFailure(WebRequest request) {
+        return ResponseEntity.status(request.getHeader(HttpHeaders.IF_MATCH) != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+    }
+
+    //If-Match / If-None-Match values are a comma separated list of (possibly weak) entity tags or *. If-None-Match
+    //uses the weak comparison, If-Match the strong one where a weak tag never matches (RFC 7232 3.1, 3.2)
+    private static boolean matchesETag(String header, long version, boolean weakComparison) {
+        String eTag = "\"" + version + "\"";
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                if (!weakComparison) {
+                    continue;
+                }
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,65 @@
+package com.rodrigoguides.springboot.controller;
+
+import com.rodrigoguides.springboot.ingest.EmployeeCsvImporter;
+import com.rodrigoguides.springboot.model.EmployeeImportStatus;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/employees/import")
+public class EmployeeImportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private EmployeeCsvImporter employeeCsvImporter;
+
+    public EmployeeImportController(EmployeeCsvImporter employeeCsvImporter) {
+        this.employeeCsvImporter = employeeCsvImporter;
+    }
+
+    //multipart upload of a CSV with a firstName,lastName,email header. 202 with the job, poll the Location for
+    //progress; 400 when the header is unusable, 429 while other imports are waiting
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<EmployeeImportStatus> importEmployees(@RequestParam("file") MultipartFile file) throws IOException {
+        return employeeCsvImporter.submit(file)
+                .map(status -> status.getState() == EmployeeImportStatus.State.FAILED
+                        ? ResponseEntity.badRequest().body(status)
+                        : ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                                .path("/{jobId}")
+                                .buildAndExpand(status.getJobId())
+                                .toUri())
+                        .body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .build());
+    }
+
+    @GetMapping("{jobId}")
+    public ResponseEntity<EmployeeImportStatus> getStatus(@PathVariable("jobId") String jobId) {
+        return employeeCsvImporter.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    //line,email,error for every rejected row, in file order
+    @GetMapping("{jobId}/errors")
+    public ResponseEntity<Resource> getErrorReport(@PathVariable("jobId") String jobId) {
+        return employeeCsvImporter.getErrorReport(jobId)
+                .<ResponseEntity<Resource>>map(report -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(jobId + "-errors.csv").build().toString())
+                        .contentType(TEXT_CSV)
+                        .body(new FileSystemResource(report)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,44 @@
+package com.rodrigoguides.springboot.controller;
+
+import com.rodrigoguides.springboot.ingest.EmployeeWriteBuffer;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeIngestStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api/employees/async")
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class EmployeeIngestController {
+    private EmployeeWriteBuffer employeeWriteBuffer;
+
+    public EmployeeIngestController(EmployeeWriteBuffer employeeWriteBuffer) {
+        this.employeeWriteBuffer = employeeWriteBuffer;
+    }
+
+    //202 with a tracking id, poll the Location for the outcome; 429 while the buffer is full
+    @PostMapping
+    public ResponseEntity<EmployeeIngestStatus> createEmployee(@RequestBody Employee employee) {
+        return employeeWriteBuffer.submit(employee)
+                .map(status -> ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                                .path("/{trackingId}")
+                                .buildAndExpand(status.getTrackingId())
+                                .toUri())
+                        .body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    @GetMapping("{trackingId}")
+    public ResponseEntity<EmployeeIngestStatus> getStatus(@PathVariable("trackingId") String trackingId) {
+        return employeeWriteBuffer.getStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
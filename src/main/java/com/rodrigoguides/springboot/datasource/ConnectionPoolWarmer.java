@@ -0,0 +1,59 @@
+package com.rodrigoguides.springboot.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+//opens minimum-idle connections in every Hikari pool before the application reports ready, so the first
+//requests after a deploy do not pay for the TCP, TLS and MySQL handshakes (app.datasource.warm-up=true).
+//That is every Hikari bean, the replica pools of ReplicaDataSourceConfig included.
+//Runners are called before the readiness state changes to ACCEPTING_TRAFFIC.
+@Component
+@ConditionalOnProperty(name = "app.datasource.warm-up", havingValue = "true")
+public class ConnectionPoolWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmer.class);
+
+    private final List<HikariDataSource> dataSources;
+
+    public ConnectionPoolWarmer(List<HikariDataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        for (HikariDataSource dataSource : dataSources) {
+            warm(dataSource);
+        }
+    }
+
+    void warm(HikariDataSource dataSource) throws SQLException {
+        long start = System.nanoTime();
+        //not set (-1) means the maximum pool size, Hikari only fills it in once the pool has started
+        int minimumIdle = dataSource.getMinimumIdle() >= 0 ? dataSource.getMinimumIdle() : dataSource.getMaximumPoolSize();
+        int size = Math.max(1, minimumIdle);
+
+        //hold them all at once so the pool has to open size distinct connections
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        log.info("Warmed {} with {} connections in {} ms", dataSource.getPoolName(), connections.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
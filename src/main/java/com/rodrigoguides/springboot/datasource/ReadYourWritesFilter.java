@@ -0,0 +1,51 @@
+package com.rodrigoguides.springboot.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+//tells ReplicaRoutingDataSource which client a request is for, so a write keeps that client's reads on the primary
+//for the read-your-writes window and not everyone's. The authenticated principal, else the client-header, else the
+//address. The header is not trusted for anything else, a made up value only sends the sender's own reads to the primary
+@Component
+@ConditionalOnProperty("app.datasource.replicas[0].url")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final String clientHeader;
+
+    public ReadYourWritesFilter(@Value("${app.datasource.read-your-writes-client-header:X-Client-Id}") String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReplicaRoutingDataSource.setCurrentClient(clientId(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.setCurrentClient(null);
+        }
+    }
+
+    //prefixed so a client header can not pass for a user or an address
+    private String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        String clientId = request.getHeader(clientHeader);
+        if (clientId != null) {
+            return "client:" + clientId;
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,38 @@
+package com.rodrigoguides.springboot.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    //after a commit, reads of the same client stay on the primary for this long so they see the write; zero disables it
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    //the most clients whose last write is remembered for the window
+    private int readYourWritesMaxClients = 100_000;
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        //not set means spring.datasource.hikari.maximum-pool-size
+        private Integer maximumPoolSize;
+
+    }
+}
@@ -0,0 +1,122 @@
+package com.rodrigoguides.springboot.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//sends read-only transactions to the replicas (round robin) and everything else to the primary.
+//The transaction flags are only set after the connection is requested, so wrap it in a LazyConnectionDataSourceProxy.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    //the client of the current request (see ReadYourWritesFilter), without one a write only pins the thread's own reads
+    private static final ThreadLocal<String> currentClient = new ThreadLocal<>();
+
+    private final List<DataSource> replicas;
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final long readYourWritesNanos;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    //commit time of the last read-write transaction per client, its reads go to the primary until the window has
+    //passed. Entries expire with the window, so only the clients that wrote within it are held
+    private final Cache<String, Long> lastWriteNanos;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow) {
+        this(primary, replicas, readYourWritesWindow, 100_000);
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                    int readYourWritesMaxClients) {
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        this.lastWriteNanos = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow.isZero() ? Duration.ofNanos(1) : readYourWritesWindow)
+                .maximumSize(readYourWritesMaxClients)
+                .build();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            replicaKeys.add("replica-" + i);
+            targets.put("replica-" + i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    //runs the call with every connection it opens taken from the primary, for reads that must not lag behind it.
+    //The connection is requested at the first statement, so this may wrap the body of a read-only transaction
+    public static <T> T onPrimary(Supplier<T> call) {
+        if (primaryOnly.get() != null) {
+            return call.get();
+        }
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            primaryOnly.remove();
+        }
+    }
+
+    //sets the client the writes and reads of the current thread are made for, null clears it
+    public static void setCurrentClient(@Nullable String clientId) {
+        if (clientId == null) {
+            currentClient.remove();
+        } else {
+            currentClient.set(clientId);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (readYourWritesNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()
+                    && TransactionSynchronizationManager.isActualTransactionActive()) {
+                String writer = writer();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        lastWriteNanos.put(writer, System.nanoTime());
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || primaryOnly.get() != null || wroteRecently()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    private boolean wroteRecently() {
+        if (readYourWritesNanos <= 0) {
+            return false;
+        }
+        Long lastWrite = lastWriteNanos.getIfPresent(writer());
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    private static String writer() {
+        String clientId = currentClient.get();
+        return clientId != null ? clientId : "thread:" + Thread.currentThread().getId();
+    }
+}
@@ -0,0 +1,26 @@
+package com.rodrigoguides.springboot.event;
+
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+//published by EmployeeServiceImpl once per bulk write (saveEmployees, deleteEmployees) instead of an
+//EmployeeChangedEvent per employee. It only has the ids: listeners that need the rows read them back on their own
+//thread, so a large import does not copy every row into every listener while it commits
+@Getter
+@AllArgsConstructor
+public class EmployeeBatchChangedEvent {
+
+    private final EmployeeChangeType type;
+
+    private final List<Long> employeeIds;
+
+    //lowest and highest seq of the employee_changes rows recorded with this write; other writes may have taken
+    //seqs in between
+    private final long firstSeq;
+
+    private final long lastSeq;
+
+}
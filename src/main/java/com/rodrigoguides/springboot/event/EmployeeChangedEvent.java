@@ -0,0 +1,32 @@
+package com.rodrigoguides.springboot.event;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//published by EmployeeServiceImpl for every write, listeners should use @TransactionalEventListener
+//so they only see changes that were committed
+@Getter
+@AllArgsConstructor
+public class EmployeeChangedEvent {
+
+    //seq of the employee_changes row recorded with this write, a change feed cursor (GET /api/employees/changes)
+    private final long seq;
+
+    private final EmployeeChangeType type;
+
+    private final long employeeId;
+
+    //the employee as written, version included, for CREATED and UPDATED; null for DELETED
+    private final Employee employee;
+
+    //a PATCH: employee only has the id and the fields that were written (version 0, the row is not read back),
+    //listeners that keep whole employees read the row themselves
+    private final boolean patch;
+
+    public EmployeeChangedEvent(long seq, EmployeeChangeType type, long employeeId, Employee employee) {
+        this(seq, type, employeeId, employee, false);
+    }
+
+}
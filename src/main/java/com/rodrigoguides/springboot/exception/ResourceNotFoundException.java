@@ -1,5 +1,9 @@
 package com.rodrigoguides.springboot.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
 public class ResourceNotFoundException extends RuntimeException{
 
     public ResourceNotFoundException(String message){
@@ -0,0 +1,567 @@
+package com.rodrigoguides.springboot.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeImportStatus;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+//bulk CSV import (POST /api/employees/import). The upload is spooled to a temp file and imported by a job in three
+//stages: a reader thread cuts the file into chunks of CHUNK_SIZE lines, parser threads (one per core by default)
+//split and validate the chunks in parallel, and a single writer saves them in file order through saveEmployees,
+//one transaction per chunk, so the change feed, search index and stream see every imported employee.
+//At most chunks-in-flight chunks exist at a time, a slow database holds the reader back instead of filling the heap.
+//Rejected rows are appended to an error report (CSV: line,email,error). Jobs run one at a time, a few more may wait.
+@Component
+public class EmployeeCsvImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeCsvImporter.class);
+
+    //matches EmployeeServiceImpl's IN clause, the existing emails of a chunk are found with a single query
+    static final int CHUNK_SIZE = 1_000;
+
+    static final String ERROR_REPORT_HEADER = "line,email,error\n";
+
+    private static final String DUPLICATE_IN_FILE = "Duplicate email in the file";
+
+    //header names are matched ignoring case, spaces and underscores (first_name, First Name, ...)
+    private static final List<String> COLUMNS = List.of("firstname", "lastname", "email");
+
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+    private static final Duration JOB_RETENTION = Duration.ofHours(24);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final EmployeeService employeeService;
+
+    private final int chunksInFlight;
+
+    private final ThreadPoolExecutor jobRunner;
+
+    private final ThreadPoolExecutor parsers;
+
+    private final Cache<String, Job> jobs;
+
+    public EmployeeCsvImporter(EmployeeService employeeService,
+                               @Value("${app.import.parser-threads:0}") int parserThreads,
+                               @Value("${app.import.chunks-in-flight:32}") int chunksInFlight,
+                               @Value("${app.import.max-queued-jobs:4}") int maxQueuedJobs) {
+        this.employeeService = employeeService;
+        this.chunksInFlight = chunksInFlight;
+        int threads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.jobRunner = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs), daemonThreads("employee-import"));
+        //never full: only one job runs and it has at most chunks-in-flight chunks queued or being parsed
+        this.parsers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunksInFlight), daemonThreads("employee-import-parser"));
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(JOB_RETENTION)
+                .executor(Runnable::run)
+                .removalListener((String jobId, Job job, RemovalCause cause) -> {
+                    if (job != null) {
+                        job.deleteFiles();
+                    }
+                })
+                .build();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //empty when max-queued-jobs imports are already waiting, the caller should retry later.
+    //A file without the firstName, lastName and email columns gives a FAILED job straight away
+    public Optional<EmployeeImportStatus> submit(MultipartFile file) throws IOException {
+        Job job = new Job(UUID.randomUUID().toString(), file.getOriginalFilename());
+        try {
+            //a streamed copy of the part (spooled to disk by the container above its size threshold), the upload is
+            //never held in memory as a whole
+            file.transferTo(job.upload);
+            Files.writeString(job.errorReport, ERROR_REPORT_HEADER);
+        } catch (IOException e) {
+            job.deleteFiles();
+            throw e;
+        }
+        jobs.put(job.id, job);
+
+        try {
+            job.columns = readHeader(job.upload);
+        } catch (IllegalArgumentException e) {
+            job.fail(e.getMessage());
+            job.finish();
+            return Optional.of(job.status());
+        }
+
+        try {
+            jobRunner.execute(job::run);
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            return Optional.empty();
+        }
+        return Optional.of(job.status());
+    }
+
+    public Optional<EmployeeImportStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::status);
+    }
+
+    //rows rejected so far, complete once the job is COMPLETED or FAILED
+    public Optional<Path> getErrorReport(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(job -> job.errorReport);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        parsers.shutdownNow();
+        jobs.invalidateAll();
+    }
+
+    //index of each of COLUMNS in the header line
+    private static int[] readHeader(Path upload) throws IOException {
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("The file is not UTF-8 encoded");
+        }
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        List<String> fields = parseLine(header);
+        List<String> names = new ArrayList<>();
+        for (String name : fields != null ? fields : List.<String>of()) {
+            names.add(name.replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT));
+        }
+        int[] columns = new int[COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("The header must have firstName, lastName and email columns");
+            }
+        }
+        return columns;
+    }
+
+    //one RFC 4180 record: fields separated by commas, optionally quoted with "" for a quote. Quoted fields can not
+    //span lines. Null when a quote is not closed
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    //null when the employee can be saved
+    private static String validate(String firstName, String lastName, String email) {
+        if (firstName.isEmpty() || lastName.isEmpty() || email.isEmpty()) {
+            return "firstName, lastName and email are required";
+        }
+        if (firstName.length() > MAX_FIELD_LENGTH || lastName.length() > MAX_FIELD_LENGTH || email.length() > MAX_FIELD_LENGTH) {
+            return "Fields can not be longer than " + MAX_FIELD_LENGTH + " characters";
+        }
+        if (!EMAIL.matcher(email).matches()) {
+            return "Invalid email";
+        }
+        return null;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private final class Job {
+
+        private final String id;
+
+        private final String fileName;
+
+        private final Path upload;
+
+        private final Path errorReport;
+
+        private final Semaphore permits = new Semaphore(chunksInFlight);
+
+        //capacity never limits: a chunk needs a permit first
+        private final BlockingQueue<ParsedChunk> parsed = new ArrayBlockingQueue<>(chunksInFlight);
+
+        private final AtomicLong rowsRead = new AtomicLong();
+
+        private final AtomicLong imported = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private int[] columns;
+
+        private long chunksRead;
+
+        //set by the reader once every chunk is handed to the parsers
+        private volatile long totalChunks = -1;
+
+        private volatile EmployeeImportStatus.State state = EmployeeImportStatus.State.QUEUED;
+
+        private volatile Instant startedAt;
+
+        private volatile Instant finishedAt;
+
+        private volatile String message;
+
+        //the parsers only see their own chunk, the writer finds the emails repeated across chunks. Their database
+        //duplicate is reported as a duplicate in the file. Hashes keep it small; a collision can only relabel a row
+        //the database rejected anyway. Writer thread only
+        private final Set<Long> emailKeys = new HashSet<>();
+
+        private Job(String id, String fileName) throws IOException {
+            this.id = id;
+            this.fileName = fileName;
+            this.upload = Files.createTempFile("employee-import-", ".csv");
+            this.errorReport = Files.createTempFile("employee-import-errors-", ".csv");
+        }
+
+        private EmployeeImportStatus status() {
+            return new EmployeeImportStatus(id, state, fileName, rowsRead.get(), imported.get(), rejected.get(),
+                    startedAt, finishedAt, message);
+        }
+
+        //on the job runner thread
+        private void run() {
+            startedAt = Instant.now();
+            state = EmployeeImportStatus.State.RUNNING;
+            Thread writer = new Thread(this::write, "employee-import-writer");
+            writer.setDaemon(true);
+            writer.start();
+            try {
+                read(writer);
+            } catch (CharacterCodingException e) {
+                fail("The file is not UTF-8 encoded");
+            } catch (IOException e) {
+                fail("Could not read the file: " + e.getMessage());
+            } catch (InterruptedException e) {
+                fail("The import was interrupted");
+                writer.interrupt();
+                Thread.currentThread().interrupt();
+            } finally {
+                //the writer still saves the chunks read before a failure
+                totalChunks = chunksRead;
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                writer.interrupt();
+                Thread.currentThread().interrupt();
+            }
+            finish();
+        }
+
+        private void read(Thread writer) throws IOException, InterruptedException {
+            try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+                //the header, checked by submit
+                reader.readLine();
+                long lineNumber = 1;
+                List<String> lines = new ArrayList<>(CHUNK_SIZE);
+                long[] lineNumbers = new long[CHUNK_SIZE];
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    lineNumbers[lines.size()] = lineNumber;
+                    lines.add(line);
+                    rowsRead.incrementAndGet();
+                    if (lines.size() == CHUNK_SIZE) {
+                        if (!dispatch(lines, lineNumbers, writer)) {
+                            return;
+                        }
+                        lines = new ArrayList<>(CHUNK_SIZE);
+                        lineNumbers = new long[CHUNK_SIZE];
+                    }
+                }
+                if (!lines.isEmpty()) {
+                    dispatch(lines, lineNumbers, writer);
+                }
+            }
+        }
+
+        //false when the writer is gone (it already failed the job) and reading should stop
+        private boolean dispatch(List<String> lines, long[] lineNumbers, Thread writer) throws InterruptedException {
+            while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    return false;
+                }
+            }
+            long sequence = chunksRead++;
+            int[] columns = this.columns;
+            try {
+                parsers.execute(() -> parsed.add(parseOrReject(sequence, lines, lineNumbers, columns)));
+            } catch (RejectedExecutionException e) {
+                //shutting down; the writer still needs every sequence to get to the end
+                parsed.add(rejectAll(sequence, lines.size(), lineNumbers, "Could not parse: the import was stopped"));
+            }
+            return true;
+        }
+
+        //a chunk always reaches the writer, it waits for every sequence in order
+        private ParsedChunk parseOrReject(long sequence, List<String> lines, long[] lineNumbers, int[] columns) {
+            try {
+                return parse(sequence, lines, lineNumbers, columns);
+            } catch (RuntimeException e) {
+                log.warn("Import {} could not parse lines {} to {}", id, lineNumbers[0], lineNumbers[lines.size() - 1], e);
+                return rejectAll(sequence, lines.size(), lineNumbers, "Could not parse: " + e.getMessage());
+            }
+        }
+
+        //on the writer thread: saves the chunks in file order whatever order the parsers finish them in
+        private void write() {
+            Map<Long, ParsedChunk> waiting = new HashMap<>();
+            long next = 0;
+            try (BufferedWriter report = Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                while (totalChunks < 0 || next < totalChunks) {
+                    ParsedChunk chunk = parsed.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    waiting.put(chunk.sequence, chunk);
+                    while ((chunk = waiting.remove(next)) != null) {
+                        save(chunk, report);
+                        next++;
+                        permits.release();
+                    }
+                }
+            } catch (IOException e) {
+                fail("Could not write the error report: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void save(ParsedChunk chunk, BufferedWriter report) throws IOException {
+            List<Rejection> rejections = chunk.rejections;
+            if (!chunk.employees.isEmpty()) {
+                try {
+                    for (EmployeeBatchResult result : employeeService.saveEmployees(chunk.employees)) {
+                        String email = chunk.employees.get(result.getIndex()).getEmail();
+                        boolean inEarlierChunk = !emailKeys.add(emailKey(email));
+                        if (result.getStatus() == EmployeeBatchResult.Status.CREATED) {
+                            imported.incrementAndGet();
+                        } else {
+                            rejections.add(new Rejection(chunk.employeeLines[result.getIndex()], email,
+                                    inEarlierChunk && result.getStatus() == EmployeeBatchResult.Status.DUPLICATE
+                                            ? DUPLICATE_IN_FILE : result.getMessage()));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Import {} could not save lines {} to {}", id, chunk.employeeLines[0],
+                            chunk.employeeLines[chunk.employees.size() - 1], e);
+                    for (int i = 0; i < chunk.employees.size(); i++) {
+                        rejections.add(new Rejection(chunk.employeeLines[i], chunk.employees.get(i).getEmail(),
+                                "Could not save: " + e.getMessage()));
+                    }
+                }
+            }
+            if (rejections.isEmpty()) {
+                return;
+            }
+            rejections.sort(Comparator.comparingLong(rejection -> rejection.line));
+            for (Rejection rejection : rejections) {
+                report.write(rejection.line + "," + csv(rejection.email) + "," + csv(rejection.error) + "\n");
+            }
+            //so GET .../errors shows the rows rejected so far
+            report.flush();
+            rejected.addAndGet(rejections.size());
+        }
+
+        private synchronized void fail(String reason) {
+            if (state != EmployeeImportStatus.State.FAILED) {
+                message = reason;
+                state = EmployeeImportStatus.State.FAILED;
+            }
+        }
+
+        private synchronized void finish() {
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                log.warn("Could not delete import upload {}", upload, e);
+            }
+            finishedAt = Instant.now();
+            if (state != EmployeeImportStatus.State.FAILED) {
+                state = EmployeeImportStatus.State.COMPLETED;
+            }
+        }
+
+        private void deleteFiles() {
+            try {
+                Files.deleteIfExists(upload);
+                Files.deleteIfExists(errorReport);
+            } catch (IOException e) {
+                log.warn("Could not delete the files of import {}", id, e);
+            }
+        }
+    }
+
+    //on a parser thread
+    private static ParsedChunk parse(long sequence, List<String> lines, long[] lineNumbers, int[] columns) {
+        int requiredFields = Math.max(columns[0], Math.max(columns[1], columns[2])) + 1;
+        List<Employee> employees = new ArrayList<>(lines.size());
+        long[] employeeLines = new long[lines.size()];
+        List<Rejection> rejections = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            List<String> fields = parseLine(lines.get(i));
+            if (fields == null) {
+                rejections.add(new Rejection(lineNumbers[i], "", "Unclosed quote"));
+                continue;
+            }
+            if (fields.size() < requiredFields) {
+                rejections.add(new Rejection(lineNumbers[i], "", "Expected at least " + requiredFields + " columns"));
+                continue;
+            }
+            String firstName = fields.get(columns[0]).trim();
+            String lastName = fields.get(columns[1]).trim();
+            String email = fields.get(columns[2]).trim();
+            String error = validate(firstName, lastName, email);
+            //case-insensitive like the unique email index under the default MySQL collation
+            if (error == null && !emails.add(email.toLowerCase(Locale.ROOT))) {
+                error = DUPLICATE_IN_FILE;
+            }
+            if (error != null) {
+                rejections.add(new Rejection(lineNumbers[i], email, error));
+                continue;
+            }
+            employeeLines[employees.size()] = lineNumbers[i];
+            employees.add(Employee.builder().firstName(firstName).lastName(lastName).email(email).build());
+        }
+        return new ParsedChunk(sequence, employees, employeeLines, rejections);
+    }
+
+    //64 bit FNV-1a of the lower cased email, case-insensitive like the unique index
+    private static long emailKey(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash ^= Character.toLowerCase(email.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static ParsedChunk rejectAll(long sequence, int lines, long[] lineNumbers, String error) {
+        List<Rejection> rejections = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            rejections.add(new Rejection(lineNumbers[i], "", error));
+        }
+        return new ParsedChunk(sequence, List.of(), new long[0], rejections);
+    }
+
+    private static final class ParsedChunk {
+
+        private final long sequence;
+
+        private final List<Employee> employees;
+
+        //file line of each of employees
+        private final long[] employeeLines;
+
+        private final List<Rejection> rejections;
+
+        private ParsedChunk(long sequence, List<Employee> employees, long[] employeeLines, List<Rejection> rejections) {
+            this.sequence = sequence;
+            this.employees = employees;
+            this.employeeLines = employeeLines;
+            this.rejections = rejections;
+        }
+    }
+
+    private static final class Rejection {
+
+        private final long line;
+
+        private final String email;
+
+        private final String error;
+
+        private Rejection(long line, String email, String error) {
+            this.line = line;
+            this.email = email;
+            this.error = error;
+        }
+    }
+}
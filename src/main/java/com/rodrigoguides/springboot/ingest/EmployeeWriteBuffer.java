@@ -0,0 +1,217 @@
+package com.rodrigoguides.springboot.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeIngestStatus;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//write-behind mode for bulk creates (app.write-behind.enabled=true): employees are queued in memory and a single
+//writer thread saves them through saveEmployees, one transaction per batch of up to batch-size employees or
+//whatever arrived within flush-interval. Queued employees are lost if the JVM dies before they are flushed.
+@Component
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class EmployeeWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeWriteBuffer.class);
+
+    private static final Duration STATUS_RETENTION = Duration.ofHours(1);
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EmployeeService employeeService;
+
+    private final BlockingQueue<Pending> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    //sized well above the queue so statuses of queued employees are never evicted
+    private final Cache<String, EmployeeIngestStatus> statuses;
+
+    private final Thread writer = new Thread(this::writeLoop, "employee-write-behind");
+
+    private volatile boolean running = true;
+
+    //submit holds the read lock from the running check to the offer, shutdown takes the write lock to stop: once
+    //running is false nothing else gets into the queue, so the writer's last drain sees every accepted employee
+    private final ReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    public EmployeeWriteBuffer(EmployeeService employeeService,
+                               @Value("${app.write-behind.queue-capacity:10000}") int queueCapacity,
+                               @Value("${app.write-behind.batch-size:500}") int batchSize,
+                               @Value("${app.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.employeeService = employeeService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(queueCapacity * 100L)
+                .expireAfterWrite(STATUS_RETENTION)
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        //shutdown() drains the queue when the context closes, the thread itself must not keep the JVM alive
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //empty when the queue is full, the caller should retry later. The status gets a copy of the employee, the writer
+    //sets id and version on the queued instance while the status may be serialized
+    public Optional<EmployeeIngestStatus> submit(Employee employee) {
+        submitLock.readLock().lock();
+        try {
+            if (!running) {
+                return Optional.empty();
+            }
+            String trackingId = UUID.randomUUID().toString();
+            EmployeeIngestStatus status = new EmployeeIngestStatus(trackingId, EmployeeIngestStatus.State.QUEUED, copy(employee), null);
+            statuses.put(trackingId, status);
+            if (!queue.offer(new Pending(trackingId, employee))) {
+                statuses.invalidate(trackingId);
+                return Optional.empty();
+            }
+            return Optional.of(status);
+        } finally {
+            submitLock.readLock().unlock();
+        }
+    }
+
+    public Optional<EmployeeIngestStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    //stops accepting employees and waits for the writer to flush everything already queued. What it could not save in
+    //time is reported FAILED rather than left QUEUED
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        submitLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        writer.join(SHUTDOWN_TIMEOUT.toMillis());
+        if (writer.isAlive()) {
+            log.warn("Write-behind writer did not drain within {}, {} employees were not saved", SHUTDOWN_TIMEOUT, queue.size());
+            writer.interrupt();
+        }
+        List<Pending> unsaved = new ArrayList<>();
+        queue.drainTo(unsaved);
+        for (Pending pending : unsaved) {
+            statuses.put(pending.trackingId, new EmployeeIngestStatus(pending.trackingId,
+                    EmployeeIngestStatus.State.FAILED, pending.employee, "Not saved before shutdown"));
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    //waits for a first employee, then keeps filling the batch until it is full or the flush interval has passed.
+    //Waits are sliced so a shutdown is noticed quickly even with a long flush interval
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(Math.min(flushIntervalNanos, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(Math.min(remaining, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Employee> employees = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            employees.add(pending.employee);
+        }
+        try {
+            List<EmployeeBatchResult> results = employeeService.saveEmployees(employees);
+            for (EmployeeBatchResult result : results) {
+                Pending pending = batch.get(result.getIndex());
+                statuses.put(pending.trackingId, new EmployeeIngestStatus(pending.trackingId,
+                        EmployeeIngestStatus.State.valueOf(result.getStatus().name()), result.getEmployee(), result.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Write-behind batch of {} employees failed", batch.size(), e);
+            for (Pending pending : batch) {
+                statuses.put(pending.trackingId, new EmployeeIngestStatus(pending.trackingId,
+                        EmployeeIngestStatus.State.FAILED, pending.employee, e.getMessage()));
+            }
+        }
+    }
+
+    private static Employee copy(Employee employee) {
+        return Employee.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
+    }
+
+    private static final class Pending {
+
+        private final String trackingId;
+
+        private final Employee employee;
+
+        private Pending(String trackingId, Employee employee) {
+            this.trackingId = trackingId;
+            this.employee = employee;
+        }
+    }
+}
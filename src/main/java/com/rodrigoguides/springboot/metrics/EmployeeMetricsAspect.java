@@ -0,0 +1,98 @@
+package com.rodrigoguides.springboot.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//times every EmployeeService, EmployeeRepository and EmployeeChangeRepository call, tagged by operation and outcome,
+//and records how many repository calls (DB round trips) each top level service call made
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EmployeeMetricsAspect {
+
+    public static final String SERVICE_TIMER = "employee.service";
+
+    public static final String REPOSITORY_TIMER = "employee.repository";
+
+    public static final String REPOSITORY_CALLS = "employee.service.repository.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    //repository calls made by the current thread inside the outermost service call
+    private final ThreadLocal<int[]> repositoryCalls = new ThreadLocal<>();
+
+    //meters are built and registered once per name, operation and exception, not on every call
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> repositoryCallSummaries = new ConcurrentHashMap<>();
+
+    public EmployeeMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.rodrigoguides.springboot.service.EmployeeService+.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outermost = repositoryCalls.get() == null;
+        if (outermost) {
+            repositoryCalls.set(new int[1]);
+        }
+        try {
+            return time(SERVICE_TIMER, joinPoint);
+        } finally {
+            if (outermost) {
+                int calls = repositoryCalls.get()[0];
+                repositoryCalls.remove();
+                repositoryCallSummaries.computeIfAbsent(joinPoint.getSignature().getName(), operation ->
+                        DistributionSummary.builder(REPOSITORY_CALLS)
+                                .tag("operation", operation)
+                                .publishPercentiles(0.5, 0.99)
+                                .register(meterRegistry))
+                        .record(calls);
+            }
+        }
+    }
+
+    @Around("execution(public * *(..)) && (target(com.rodrigoguides.springboot.repository.EmployeeRepository)"
+            + " || target(com.rodrigoguides.springboot.repository.EmployeeChangeRepository))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] calls = repositoryCalls.get();
+        if (calls != null) {
+            calls[0]++;
+        }
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            sample.stop(timer(name, joinPoint.getSignature().getName(), exception));
+        }
+    }
+
+    private Timer timer(String name, String operation, String exception) {
+        return timers.computeIfAbsent(List.of(name, operation, exception), key -> Timer.builder(name)
+                .tag("operation", operation)
+                .tag("outcome", "none".equals(exception) ? "success" : "error")
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+    }
+}
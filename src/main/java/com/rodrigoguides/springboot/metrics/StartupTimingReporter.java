@@ -0,0 +1,53 @@
+package com.rodrigoguides.springboot.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//time-to-ready and time-to-first-request measured from JVM start, so class loading and the JVM itself are included.
+//Boot already publishes application.started.time and application.ready.time (from SpringApplication.run only),
+//this adds application.first.request.time. The per step breakdown is at /actuator/startup.
+@Component
+public class StartupTimingReporter {
+
+    static final String FIRST_REQUEST_TIME = "application.first.request.time";
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingReporter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean firstRequestHandled = new AtomicBoolean();
+
+    public StartupTimingReporter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        log.info("Ready {} ms after JVM start ({} ms in SpringApplication.run)", uptimeMillis(), event.getTimeTaken().toMillis());
+    }
+
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestHandled.compareAndSet(false, true)) {
+            long uptime = uptimeMillis();
+            TimeGauge.builder(FIRST_REQUEST_TIME, () -> uptime, TimeUnit.MILLISECONDS)
+                    .description("Time from JVM start until the first request was handled")
+                    .register(meterRegistry);
+            log.info("First request {} {} handled {} ms after JVM start", event.getMethod(), event.getRequestUrl(), uptime);
+        }
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -12,8 +12,16 @@ import javax.persistence.*;
 @Builder
 
 @Entity
-@Table(name="employees")
+@Table(name="employees", indexes = {
+        @Index(name = Employee.EMAIL_INDEX, columnList = "email", unique = true),
+        @Index(name = "idx_employees_name", columnList = "first_name, last_name")
+})
 public class Employee {
+    public static final String EMAIL_INDEX = "idx_employees_email";
+
+    //AUTO_INCREMENT. Hibernate then inserts one row at a time, bulk inserts go through EmployeeRepository.insertAll.
+    //Not a pooled sequence: MySQL has none, and the table Hibernate emulates one with is read on a second pooled
+    //connection while the inserting transaction holds its own, which starves the pool under concurrent inserts
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -27,4 +35,8 @@ public class Employee {
     @Column(nullable = false)
     private String email;
 
+    //optimistic locking, also exposed as the ETag of the employee resource
+    @Version
+    private long version;
+
 }
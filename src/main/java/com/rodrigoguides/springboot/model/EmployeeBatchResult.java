@@ -0,0 +1,26 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeBatchResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    //position of the employee in the submitted batch
+    private int index;
+
+    private Status status;
+
+    private Employee employee;
+
+    private String message;
+
+}
@@ -0,0 +1,37 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+//one row per write to employees, deletes included (tombstones), read back in seq order by the change feed
+@Entity
+@Table(name = "employee_changes")
+public class EmployeeChange {
+
+    //IDENTITY on purpose: pooled sequence blocks are handed out per instance, so their values are not in insert order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long seq;
+
+    @Column(name = "employee_id", nullable = false)
+    private long employeeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmployeeChangeType type;
+
+    //set by the database when the row is inserted and only ever compared with the database clock (see
+    //EmployeeChangeRepository.currentTimestamp), so clock skew between instances does not reorder the feed
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "timestamp(6) default localtimestamp(6)")
+    private Instant changedAt;
+
+}
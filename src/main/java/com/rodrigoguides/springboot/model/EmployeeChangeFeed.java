@@ -0,0 +1,41 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeChangeFeed {
+
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class Change {
+
+        private long seq;
+
+        private EmployeeChangeType type;
+
+        private long employeeId;
+
+        //current state of the employee, null for DELETED
+        private Employee employee;
+
+        private Instant changedAt;
+
+    }
+
+    //latest change per employee in this page, in seq order; clients upsert or delete by employeeId
+    private List<Change> changes;
+
+    //pass it as "since" on the next call
+    private long nextToken;
+
+    private boolean hasMore;
+
+}
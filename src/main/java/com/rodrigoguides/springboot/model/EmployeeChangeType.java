@@ -0,0 +1,7 @@
+package com.rodrigoguides.springboot.model;
+
+public enum EmployeeChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,40 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeImportStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String jobId;
+
+    private State state;
+
+    private String fileName;
+
+    //data lines read so far, the header is not counted
+    private long rowsRead;
+
+    private long imported;
+
+    //invalid rows and emails that already exist, one line each in the error report
+    private long rejected;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private String message;
+
+}
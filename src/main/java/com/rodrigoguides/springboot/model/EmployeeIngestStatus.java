@@ -0,0 +1,28 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeIngestStatus {
+
+    public enum State {
+        QUEUED,
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    private String trackingId;
+
+    private State state;
+
+    //the submitted employee, with its id once CREATED
+    private Employee employee;
+
+    private String message;
+
+}
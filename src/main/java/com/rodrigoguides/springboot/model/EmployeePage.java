@@ -0,0 +1,20 @@
+package com.rodrigoguides.springboot.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeePage {
+
+    private List<Employee> content;
+
+    //id of the last employee in this page, pass it as "after" to get the next page; null when there are no more rows
+    private Long nextCursor;
+
+    private int limit;
+
+}
@@ -0,0 +1,118 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+//AIMD concurrency limit driven by latency, in the spirit of TCP Vegas: the lowest latency of the previous window of
+//samples is the no-queueing baseline, a smoothed latency above baseline * tolerance means requests are queueing (for
+//a pooled connection, most of the time) and the limit backs off multiplicatively, at most once per limit samples like
+//TCP once per round trip; otherwise it grows by about one per limit completions. Baseline and smoothed latency are
+//kept per route, a by-id read and a page of 500 rows have nothing in common. Requests over the limit are rejected
+//right away instead of joining the queue, so latency stays bounded.
+public class AdaptiveConcurrencyLimiter {
+
+    static final int WINDOW_SAMPLES = 500;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    //double bits, updated with CAS
+    private final AtomicLong limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicLong lastBackoffSample = new AtomicLong();
+
+    //keyed by route pattern, so the number of entries is bounded by the mappings
+    private final Map<String, Latency> latencies = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(initialLimit, maxLimit))));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    //release without a sample, for requests whose latency says nothing about the backend (async, failed early)
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(String route, long latencyNanos) {
+        int concurrency = inFlight.getAndDecrement();
+        onSample(latencies.computeIfAbsent(route, key -> new Latency()), latencyNanos, concurrency);
+    }
+
+    private void onSample(Latency latency, long latencyNanos, int concurrency) {
+        long sample = samples.incrementAndGet();
+        if (latency.isQueueing(latencyNanos, tolerance)) {
+            long lastBackoff = lastBackoffSample.get();
+            if (sample - lastBackoff >= getLimit() && lastBackoffSample.compareAndSet(lastBackoff, sample)) {
+                updateLimit(current -> Math.max(minLimit, current * BACKOFF_RATIO));
+            }
+        } else if (concurrency * 2 >= getLimit()) {
+            //only grow while the limit is actually used, an idle service must not drift to maxLimit
+            updateLimit(current -> Math.min(maxLimit, current + 1 / current));
+        }
+    }
+
+    private void updateLimit(DoubleUnaryOperator function) {
+        long bits;
+        do {
+            bits = limit.get();
+        } while (!limit.compareAndSet(bits, Double.doubleToLongBits(function.applyAsDouble(Double.longBitsToDouble(bits)))));
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong samples = new AtomicLong();
+
+        private final AtomicLong windowMin = new AtomicLong(Long.MAX_VALUE);
+
+        private volatile long baseline = Long.MAX_VALUE;
+
+        //moving average over roughly the last 16 samples, single slow requests (GC, a cold cache) do not count
+        private final AtomicLong smoothed = new AtomicLong(-1);
+
+        private boolean isQueueing(long latencyNanos, double tolerance) {
+            windowMin.accumulateAndGet(latencyNanos, Math::min);
+            if (samples.incrementAndGet() % WINDOW_SAMPLES == 0) {
+                //a new baseline per window, so it follows the backend when it gets permanently slower or faster
+                baseline = windowMin.getAndSet(Long.MAX_VALUE);
+            }
+            long average = smoothed.accumulateAndGet(latencyNanos,
+                    (current, latency) -> current < 0 ? latency : current + (latency - current) / 16);
+            return average > Math.min(baseline, windowMin.get()) * tolerance;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//per-client rate limit on /api/employees (app.rate-limit.enabled=true), 429 with Retry-After once a client has used
+//its burst. Clients are told apart by the authenticated principal, else by their address. The client-header is only
+//taken from trusted-proxies (a gateway that sets it for the callers behind it), anyone else could send a new value
+//with every request
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true")
+public class ClientRateLimitFilter extends OncePerRequestFilter {
+
+    static final String API_PATH = "/api/employees";
+
+    private final ClientRateLimiter rateLimiter;
+
+    private final String clientHeader;
+
+    private final Set<String> trustedProxies;
+
+    private final Counter rejected;
+
+    public ClientRateLimitFilter(MeterRegistry meterRegistry,
+                                 @Value("${app.rate-limit.requests-per-second:50}") double requestsPerSecond,
+                                 @Value("${app.rate-limit.burst:100}") int burst,
+                                 @Value("${app.rate-limit.max-clients:100000}") int maxClients,
+                                 @Value("${app.rate-limit.client-header:X-Client-Id}") String clientHeader,
+                                 @Value("${app.rate-limit.trusted-proxies:}") String[] trustedProxies) {
+        this.rateLimiter = new ClientRateLimiter(requestsPerSecond, burst, maxClients);
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Set.of(trustedProxies);
+        this.rejected = meterRegistry.counter("employees.api.rate.limited");
+        meterRegistry.gauge("employees.api.rate.limit.clients", rateLimiter, ClientRateLimiter::getTrackedClients);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.tryAcquire(clientId(request));
+        if (waitNanos != ClientRateLimiter.ALLOWED) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    //prefixed so a client header can not take over the bucket of a user or an address
+    private String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        String remoteAddress = request.getRemoteAddr();
+        if (trustedProxies.contains(remoteAddress)) {
+            String clientId = request.getHeader(clientHeader);
+            if (clientId != null) {
+                return "client:" + clientId;
+            }
+        }
+        return "address:" + remoteAddress;
+    }
+}
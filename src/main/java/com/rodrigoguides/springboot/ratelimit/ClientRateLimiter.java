@@ -0,0 +1,63 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//token bucket per client in its GCRA form: a bucket is a single AtomicLong holding the theoretical arrival time of
+//the next request, a request is allowed when that time is at most burst intervals ahead of now. Acquiring is one
+//CAS, no locks and no allocation once the client has a bucket.
+public class ClientRateLimiter {
+
+    //nothing to wait for, the request can go through
+    public static final long ALLOWED = 0;
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final LongSupplier nanoClock;
+
+    //bounded and expiring so clients that went away, or spoofed client ids, do not pile up
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(double requestsPerSecond, int burst, int maxClients) {
+        this(requestsPerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double requestsPerSecond, int burst, int maxClients, LongSupplier nanoClock) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                //a bucket idle this long is full again, dropping it loses nothing
+                .expireAfterAccess(Duration.ofNanos(burstNanos).plusSeconds(1))
+                .build();
+    }
+
+    //ALLOWED, or how long the client has to wait before its next request is allowed
+    public long tryAcquire(String clientId) {
+        AtomicLong bucket = buckets.get(clientId, key -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long arrival = bucket.get();
+            long next = Math.max(arrival == Long.MIN_VALUE ? now : arrival, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    public long getTrackedClients() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,126 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//sheds /api/employees requests with 503 once more of them are in flight than AdaptiveConcurrencyLimiter allows
+//(app.concurrency-limit.enabled=true), so overload turns into fast rejections instead of a queue for pooled
+//connections that times everybody out. Runs after the per-client rate limit. Async requests (the exports) keep
+//their permit until the response completes; the change stream is left out, it holds no connection and has its own
+//subscriber limit. The latency sample is the time spent in EmployeeService calls (see ServiceCallTimer), not the
+//whole request: writing a large response to a slow client would otherwise read as backend queueing.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String STREAM_PATH = ClientRateLimitFilter.API_PATH + "/stream";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${app.concurrency-limit.tolerance:2.0}") double tolerance) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance);
+        this.rejected = meterRegistry.counter("employees.api.concurrency.rejected");
+        meterRegistry.gauge("employees.api.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("employees.api.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith(ClientRateLimitFilter.API_PATH) || uri.startsWith(STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        ServiceCallTimer.start();
+        boolean async = false;
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            completed = true;
+        } finally {
+            long serviceNanos = ServiceCallTimer.stop();
+            if (async) {
+                //finishes on another thread; its duration says nothing about queueing, so no sample
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+            } else if (completed && serviceNanos != ServiceCallTimer.NO_CALLS) {
+                limiter.release(route(request), serviceNanos);
+            } else {
+                limiter.release();
+            }
+        }
+    }
+
+    //the matched mapping, e.g. "GET /api/employees/{id}", not the URI with its ids
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        //a failed or timed out request also gets onComplete
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            //restarted async processing (an async dispatch that starts again) keeps the permit
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//adds up the time a request spends in EmployeeService calls, the latency ConcurrencyLimitFilter samples. Reading the
+//request and writing the response are left out, a slow client or a big body says nothing about the backend queueing
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true")
+public class ServiceCallTimer {
+
+    static final long NO_CALLS = -1;
+
+    //nanos spent in service calls and the current call depth, for the request running on this thread
+    private static final ThreadLocal<long[]> serviceTime = new ThreadLocal<>();
+
+    static void start() {
+        serviceTime.set(new long[2]);
+    }
+
+    //the nanos spent in outermost service calls since start(), NO_CALLS if the request made none
+    static long stop() {
+        long[] time = serviceTime.get();
+        serviceTime.remove();
+        return time != null && time[0] > 0 ? time[0] : NO_CALLS;
+    }
+
+    @Around("execution(* com.rodrigoguides.springboot.service.EmployeeService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long[] time = serviceTime.get();
+        if (time == null || time[1] > 0) {
+            return joinPoint.proceed();
+        }
+        time[1]++;
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            time[0] += Math.max(1, System.nanoTime() - start);
+            time[1]--;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.EmployeeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange, Long>, EmployeeChangeRepositoryCustom {
+
+    //range scan on the primary key from the given seq, so a poll reads the new changes only
+    List<EmployeeChange> findBySeqGreaterThanOrderBySeqAsc(long seq, Pageable pageable);
+
+    //newest first, the scan stops at the first change old enough
+    Optional<EmployeeChange> findFirstByChangedAtLessThanEqualOrderBySeqDesc(Instant changedAt);
+
+    //the clock changed_at is taken from
+    @Query(value = "select localtimestamp(6)", nativeQuery = true)
+    Timestamp currentTimestamp();
+
+}
@@ -0,0 +1,13 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.EmployeeChange;
+
+import java.util.List;
+
+//writes that Spring Data can not batch, implemented in EmployeeChangeRepositoryImpl
+public interface EmployeeChangeRepositoryCustom {
+
+    //one JDBC batch in the current transaction, the seqs the database generates are read back and set on the changes
+    void insertAll(List<EmployeeChange> changes);
+
+}
@@ -0,0 +1,53 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.EmployeeChange;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+public class EmployeeChangeRepositoryImpl implements EmployeeChangeRepositoryCustom {
+
+    private static final String INSERT_SQL = "insert into employee_changes (employee_id, type) values (?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //Hibernate inserts IDENTITY entities one statement at a time to read each id back, bulk writes record
+    //their changes here instead (a single multi-row insert on MySQL with rewriteBatchedStatements). The generated
+    //seqs are set on the given changes, in order
+    @Override
+    public void insertAll(List<EmployeeChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        //Hibernate puts what is left of the transaction timeout on its own statements, not on the ones run by doWork
+        int timeout = session.getJdbcCoordinator().determineRemainingTransactionTimeOutPeriod();
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                if (timeout > 0) {
+                    statement.setQueryTimeout(timeout);
+                }
+                for (EmployeeChange change : changes) {
+                    statement.setLong(1, change.getEmployeeId());
+                    statement.setString(2, change.getType().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (EmployeeChange change : changes) {
+                        if (!keys.next()) {
+                            break;
+                        }
+                        change.setSeq(keys.getLong(1));
+                    }
+                }
+            }
+        });
+    }
+}
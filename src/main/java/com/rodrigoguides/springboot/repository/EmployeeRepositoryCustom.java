@@ -0,0 +1,23 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.Employee;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//queries and writes that can not be derived or declared with @Query, implemented in EmployeeRepositoryImpl
+public interface EmployeeRepositoryCustom {
+
+    //Employee attributes that can be selected with findFieldsByIdGreaterThan
+    Set<String> PROJECTABLE_FIELDS = Set.of("id", "firstName", "lastName", "email", "version");
+
+    //keyset page of the given attributes only, one map per row in the requested field order, no entities are loaded
+    List<Map<String, Object>> findFieldsByIdGreaterThan(Collection<String> fields, long id, int limit);
+
+    //one JDBC batch in the current transaction, the generated ids are read back and set on the employees (version 0).
+    //The employees are not managed afterwards
+    void insertAll(List<Employee> employees);
+
+}
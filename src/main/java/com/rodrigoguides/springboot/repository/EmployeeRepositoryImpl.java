@@ -0,0 +1,101 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.Employee;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+
+    private static final String INSERT_SQL = "insert into employees (first_name, last_name, email, version) values (?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdGreaterThan(Collection<String> fields, long id, int limit) {
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown employee field: " + field);
+            }
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Employee> employee = query.from(Employee.class);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(employee.get(field).alias(field));
+        }
+        query.multiselect(selections)
+                .where(builder.greaterThan(employee.get("id"), id))
+                .orderBy(builder.asc(employee.get("id")));
+
+        //scalar tuples are never managed, so there is nothing to snapshot or dirty check
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setHint(HINT_READONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : fields) {
+                values.put(field, row.get(field));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    //Hibernate inserts IDENTITY entities one statement at a time to read each id back, saveEmployees inserts here
+    //instead (a single multi-row insert on MySQL with rewriteBatchedStatements)
+    @Override
+    public void insertAll(List<Employee> employees) {
+        if (employees.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        //Hibernate puts what is left of the transaction timeout on its own statements, not on the ones run by doWork
+        int timeout = session.getJdbcCoordinator().determineRemainingTransactionTimeOutPeriod();
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                if (timeout > 0) {
+                    statement.setQueryTimeout(timeout);
+                }
+                for (Employee employee : employees) {
+                    statement.setString(1, employee.getFirstName());
+                    statement.setString(2, employee.getLastName());
+                    statement.setString(3, employee.getEmail());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Employee employee : employees) {
+                        if (!keys.next()) {
+                            break;
+                        }
+                        employee.setId(keys.getLong(1));
+                        employee.setVersion(0L);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,469 @@
+package com.rodrigoguides.springboot.search;
+
+import com.rodrigoguides.springboot.datasource.ReplicaRoutingDataSource;
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.store.LongLongHashTable;
+import com.rodrigoguides.springboot.store.OffHeapEmployeeStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//in-memory prefix index over employee first names, last names and emails for typeahead search.
+//Terms map to sorted id postings that searches read without locking; writes are serialized. Deleted ids are kept
+//(ids are never reused), a change of a deleted employee that is applied after its delete is dropped.
+//With app.employee-store=off-heap the store already holds every employee: the index then keeps the terms only, resolves
+//its candidates through the store and is kept up to date by OffHeapEmployeeStoreLoader instead of its own listener
+@Component
+public class EmployeeSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+    //upper bound on the employees scored per search, keeps short prefixes like "a" cheap on large tables
+    static final int MAX_CANDIDATES = 2_000;
+
+    private static final int BUILD_PAGE_SIZE = 1_000;
+
+    private static final Posting NO_IDS = new Posting(new long[0], 0);
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ConcurrentSkipListMap<String, Posting> terms = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    //ids of deleted employees, guarded by this. Not used with the store, which keeps its own
+    private final LongLongHashTable deleted = new LongLongHashTable(1024);
+
+    //null unless app.employee-store=off-heap
+    private final OffHeapEmployeeStore store;
+
+    //changes committed while build() runs, applied once it is done; null when not building. Guarded by this
+    private List<Runnable> pendingChanges;
+
+    //reads back the employees of bulk writes off the committing thread, one at a time in commit order
+    private final ThreadPoolExecutor reloads = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "employee-search-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository) {
+        this(employeeRepository, null);
+    }
+
+    @Autowired
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository, @Nullable OffHeapEmployeeStore store) {
+        this.employeeRepository = employeeRepository;
+        this.store = store;
+    }
+
+    //the web server is already up when this runs, searches served meanwhile see the employees indexed so far; the
+    //readiness state only turns ACCEPTING_TRAFFIC once it returns. A page can be read before a concurrent write
+    //commits and indexed after its change, so changes are held back until the build is done and then replayed
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (store != null) {
+            return;
+        }
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        long after = 0;
+        List<Employee> page;
+        try {
+            do {
+                page = employeeRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, BUILD_PAGE_SIZE));
+                for (Employee employee : page) {
+                    index(employee);
+                    after = employee.getId();
+                }
+            } while (page.size() == BUILD_PAGE_SIZE);
+        } finally {
+            synchronized (this) {
+                for (Runnable change : pendingChanges) {
+                    change.run();
+                }
+                pendingChanges = null;
+                //drops the room the postings grew while the ids were appended
+                terms.replaceAll((token, posting) -> posting.trim());
+            }
+        }
+        log.info("Indexed {} employees for search in {} ms", documents.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (store != null) {
+            return;
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(() -> apply(event));
+        } else {
+            apply(event);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEmployeesChanged(EmployeeBatchChangedEvent event) {
+        if (store != null) {
+            return;
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(() -> apply(event));
+        } else {
+            apply(event);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloads.shutdownNow();
+    }
+
+    private void apply(EmployeeChangedEvent event) {
+        if (event.getType() == EmployeeChangeType.DELETED) {
+            remove(event.getEmployeeId());
+        } else if (event.isPatch()) {
+            reloads.execute(() -> reload(List.of(event.getEmployeeId())));
+        } else {
+            index(event.getEmployee());
+        }
+    }
+
+    private void apply(EmployeeBatchChangedEvent event) {
+        if (event.getType() == EmployeeChangeType.DELETED) {
+            for (Long id : event.getEmployeeIds()) {
+                remove(id);
+            }
+        } else {
+            reloads.execute(() -> reload(event.getEmployeeIds()));
+        }
+    }
+
+    //from the primary, a replica may not have the rows yet
+    void reload(List<Long> ids) {
+        try {
+            for (Employee employee : ReplicaRoutingDataSource.onPrimary(() -> employeeRepository.findAllById(ids))) {
+                index(employee);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not index {} employees, they show up in search after the next restart", ids.size(), e);
+        }
+    }
+
+    public List<Employee> search(String query, int limit) {
+        String[] queryTerms = tokenizeQuery(query);
+        if (queryTerms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        //candidates come from the longest (most selective) term, the other terms are checked while scoring
+        String seed = Arrays.stream(queryTerms).max(Comparator.comparingInt(String::length)).get();
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Posting posting : terms.subMap(seed, true, seed + Character.MAX_VALUE, true).values()) {
+            for (int i = 0; i < posting.size; i++) {
+                candidates.add(posting.ids[i]);
+            }
+            if (candidates.size() >= MAX_CANDIDATES) {
+                break;
+            }
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingInt((Hit hit) -> hit.score)
+                .thenComparing((Hit hit) -> hit.document.employee.getId(), Comparator.reverseOrder()));
+        for (Long id : candidates) {
+            Document document = document(id);
+            int score = document == null ? 0 : document.score(queryTerms);
+            if (score > 0) {
+                top.add(new Hit(document, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<Employee> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Employee employee = top.poll().document.employee;
+            results.add(store == null ? copy(employee) : employee);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    public int size() {
+        return store == null ? documents.size() : store.size();
+    }
+
+    //the store hands out a fresh instance per read, it is tokenized again for scoring
+    private Document document(long id) {
+        if (store == null) {
+            return documents.get(id);
+        }
+        Employee employee = store.get(id);
+        return employee == null ? null : new Document(employee);
+    }
+
+    //off-heap mode: moves the id from the terms of previous to those of current, called by OffHeapEmployeeStoreLoader
+    //once the change is applied to the store. previous is null for a new employee, current for a deleted one
+    public synchronized void update(@Nullable Employee previous, @Nullable Employee current) {
+        long id = previous != null ? previous.getId() : current.getId();
+        if (previous != null) {
+            for (String token : new Document(previous).tokens) {
+                removeId(token, id);
+            }
+        }
+        if (current != null) {
+            for (String token : new Document(current).tokens) {
+                addId(token, id);
+            }
+        }
+    }
+
+    //keeps the indexed employee when it is already at this version or a later one, or was deleted: the listeners of
+    //concurrent writes can run in either order
+    synchronized void index(Employee employee) {
+        if (deleted.get(employee.getId()) != LongLongHashTable.NO_VALUE) {
+            return;
+        }
+        Document previous = documents.get(employee.getId());
+        if (previous != null && previous.employee.getVersion() >= employee.getVersion()) {
+            return;
+        }
+        Document document = new Document(copy(employee));
+        if (previous != null) {
+            for (String token : previous.tokens) {
+                removeId(token, employee.getId());
+            }
+        }
+        for (String token : document.tokens) {
+            addId(token, employee.getId());
+        }
+        documents.put(employee.getId(), document);
+    }
+
+    synchronized void remove(long id) {
+        if (deleted.get(id) == LongLongHashTable.NO_VALUE) {
+            deleted.add(id, 0L);
+        }
+        Document previous = documents.remove(id);
+        if (previous != null) {
+            for (String token : previous.tokens) {
+                removeId(token, id);
+            }
+        }
+    }
+
+    private void addId(String token, long id) {
+        Posting posting = terms.getOrDefault(token, NO_IDS);
+        Posting updated = posting.add(id);
+        if (updated != posting) {
+            terms.put(token, updated);
+        }
+    }
+
+    private void removeId(String token, long id) {
+        Posting posting = terms.get(token);
+        if (posting == null) {
+            return;
+        }
+        Posting updated = posting.remove(id);
+        if (updated == null) {
+            terms.remove(token);
+        } else if (updated != posting) {
+            terms.put(token, updated);
+        }
+    }
+
+    //splits on whitespace and . , _ + -, without a regex: in off-heap mode every candidate of a search is tokenized
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            if (i == lowerCase.length() || isSeparator(lowerCase.charAt(i))) {
+                if (start >= 0) {
+                    tokens.add(lowerCase.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static boolean isSeparator(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+            case '.':
+            case ',':
+            case '_':
+            case '+':
+            case '-':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //like tokenize, but a term that looks like an email is kept whole so it matches the full email token
+    static String[] tokenizeQuery(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        return Arrays.stream(query.trim().split("\\s+"))
+                .flatMap(term -> term.indexOf('@') >= 0 ? Stream.of(term.toLowerCase(Locale.ROOT)) : Arrays.stream(tokenize(term)))
+                .filter(term -> !term.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static Employee copy(Employee employee) {
+        return Employee.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
+    }
+
+    //ids of a term in ascending order. ids[0, size) never changes once the posting is published, so a search reads it
+    //without a lock. Ids come mostly in ascending order (the build, new employees): the highest id goes into the free
+    //room after size, which the array only gets through copies of twice the length, so appends are amortized; any other
+    //change copies the array
+    private static final class Posting {
+
+        private final long[] ids;
+
+        private final int size;
+
+        private Posting(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        private Posting add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                long[] target = size < ids.length ? ids : Arrays.copyOf(ids, Math.max(1, size * 2));
+                target[size] = id;
+                return new Posting(target, size + 1);
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return this;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[size + 1];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = id;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, size - insertAt);
+            return new Posting(updated, size + 1);
+        }
+
+        //null once the last id is removed
+        private Posting remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return this;
+            }
+            if (size == 1) {
+                return null;
+            }
+            long[] updated = new long[size - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, size - position - 1);
+            return new Posting(updated, size - 1);
+        }
+
+        private Posting trim() {
+            return size == ids.length ? this : new Posting(Arrays.copyOf(ids, size), size);
+        }
+    }
+
+    private static final class Document {
+
+        private final Employee employee;
+
+        //name tokens first, then the full email and the parts of its local part (the domain is too common to be useful)
+        private final String[] tokens;
+
+        private final int nameTokens;
+
+        private Document(Employee employee) {
+            this.employee = employee;
+            List<String> tokens = new ArrayList<>();
+            tokens.addAll(Arrays.asList(tokenize(employee.getFirstName())));
+            tokens.addAll(Arrays.asList(tokenize(employee.getLastName())));
+            this.nameTokens = tokens.size();
+            String email = employee.getEmail() == null ? "" : employee.getEmail().toLowerCase(Locale.ROOT);
+            if (!email.isEmpty()) {
+                tokens.add(email);
+                int at = email.indexOf('@');
+                tokens.addAll(Arrays.asList(tokenize(at < 0 ? email : email.substring(0, at))));
+            }
+            this.tokens = tokens.stream().distinct().toArray(String[]::new);
+        }
+
+        //every query term has to prefix some token: exact token 3, name prefix 2, email prefix 1
+        private int score(String[] queryTerms) {
+            int total = 0;
+            for (String queryTerm : queryTerms) {
+                int best = 0;
+                for (int i = 0; i < tokens.length && best < 3; i++) {
+                    if (tokens[i].equals(queryTerm)) {
+                        best = 3;
+                    } else if (tokens[i].startsWith(queryTerm)) {
+                        best = Math.max(best, i < nameTokens ? 2 : 1);
+                    }
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+    }
+
+    private static final class Hit {
+
+        private final Document document;
+
+        private final int score;
+
+        private Hit(Document document, int score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.rodrigoguides.springboot.service;
 
 import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeePage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
+    int DEFAULT_PAGE_SIZE = 100;
+    int MAX_PAGE_SIZE = 1000;
+
     Employee saveEmployee(Employee employee);
+    List<EmployeeBatchResult> saveEmployees(List<Employee> employees);
     List<Employee> getAllEmployees();
+    EmployeePage getEmployees(long after, int limit);
+    List<Map<String, Object>> getEmployeeFields(Collection<String> fields, long after, int limit);
+    long exportEmployees(Consumer<Employee> consumer);
     Optional<Employee> getEmployeeById(long id);
+    Optional<Employee> getEmployeeByEmail(String email);
+    List<Employee> searchEmployees(String query, int limit);
+    Optional<Long> getEmployeeVersion(long id);
+    EmployeeChangeFeed getEmployeeChanges(long since, int limit);
     Employee updatedEmployee(Employee updatedEmployee);
-    void deleteEmployee(long id);
+    boolean patchEmployee(long id, Employee employee);
+    boolean deleteEmployee(long id);
+    int deleteEmployees(Collection<Long> ids);
 }
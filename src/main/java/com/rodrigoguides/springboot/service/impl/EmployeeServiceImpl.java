@@ -1,52 +1,474 @@
 package com.rodrigoguides.springboot.service.impl;
 
+import com.rodrigoguides.springboot.concurrent.SingleFlight;
+import com.rodrigoguides.springboot.config.CacheConfig;
+import com.rodrigoguides.springboot.datasource.ReplicaRoutingDataSource;
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
 import com.rodrigoguides.springboot.exception.ResourceNotFoundException;
 import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChange;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.model.EmployeePage;
+import com.rodrigoguides.springboot.repository.EmployeeChangeRepository;
 import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.search.EmployeeSearchIndex;
 import com.rodrigoguides.springboot.service.EmployeeService;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
+    //rows per EmployeeRepository.insertAll batch
+    static final int INSERT_BATCH_SIZE = 50;
+
+    static final int IN_CLAUSE_SIZE = 1000;
+
+    //saveEmployees attempts when a concurrent writer takes one of the emails between the check and the insert
+    static final int SAVE_ATTEMPTS = 3;
+
+    //every write transaction ends within this (Hibernate puts the rest of it on each statement as a query timeout),
+    //the change feed settle time relies on it
+    public static final int WRITE_TIMEOUT_SECONDS = 5;
+
     EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    EntityManager entityManager;
+
+    ApplicationEventPublisher eventPublisher;
+
+    EmployeeSearchIndex searchIndex;
+
+    EmployeeChangeRepository changeRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    //changes younger than this are held back from the feed: a transaction can take a lower seq and commit after a
+    //higher one was read. changed_at is taken somewhere inside the writing transaction (at the statement on MySQL, at
+    //the start of the transaction on H2), so a transaction that took a lower seq ends at most two write timeouts
+    //after any later change time, waiting longer than that means the feed never skips it
+    Duration changeFeedSettleTime = Duration.ofSeconds(15);
+
+    private final SingleFlight<Long, Optional<Employee>> employeeByIdLoads = new SingleFlight<>();
+
+    private final SingleFlight<String, Optional<Employee>> employeeByEmailLoads = new SingleFlight<>();
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EntityManager entityManager,
+                               ApplicationEventPublisher eventPublisher, EmployeeSearchIndex searchIndex,
+                               EmployeeChangeRepository changeRepository, PlatformTransactionManager transactionManager) {
         this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(WRITE_TIMEOUT_SECONDS);
     }
 
+    //zero turns the wait off, for tests that read their own writes from the feed right away
+    @Value("${app.change-feed.settle-time:15s}")
+    public void setChangeFeedSettleTime(Duration changeFeedSettleTime) {
+        if (!changeFeedSettleTime.isZero() && changeFeedSettleTime.compareTo(Duration.ofSeconds(2L * WRITE_TIMEOUT_SECONDS)) <= 0) {
+            throw new IllegalArgumentException("app.change-feed.settle-time must be longer than twice the write timeout of "
+                    + WRITE_TIMEOUT_SECONDS + "s, was " + changeFeedSettleTime);
+        }
+        this.changeFeedSettleTime = changeFeedSettleTime;
+    }
+
+    //writes are transactional so the employee row and its change feed entry commit together
     @Override
+    @Transactional(timeout = WRITE_TIMEOUT_SECONDS)
+    @CachePut(cacheNames = CacheConfig.EMPLOYEES, key = "#result.id")
     public Employee saveEmployee(Employee employee) {
 
-        Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
-        if (savedEmployee.isPresent()) {
-            throw new ResourceNotFoundException("Employee already exists with given email: " + employee.getEmail());
+        //the unique index on email rejects duplicates, no need for a lookup before the insert
+        try {
+            Employee savedEmployee = employeeRepository.saveAndFlush(employee);
+            publish(EmployeeChangeType.CREATED, savedEmployee.getId(), savedEmployee);
+            return savedEmployee;
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new ResourceNotFoundException("Employee already exists with given email: " + employee.getEmail(), e);
+            }
+            throw e;
+        }
+    }
+
+    //records the change row first, the event carries its seq. changed_at is left to the database
+    private void publish(EmployeeChangeType type, long id, Employee employee) {
+        publish(type, id, employee, false);
+    }
+
+    private void publish(EmployeeChangeType type, long id, Employee employee, boolean patch) {
+        EmployeeChange change = new EmployeeChange(0L, id, type, null);
+        //IDENTITY: the insert runs right away and sets seq on the instance
+        changeRepository.save(change);
+        eventPublisher.publishEvent(new EmployeeChangedEvent(change.getSeq(), type, id, employee, patch));
+    }
+
+    //bulk writes: the change rows go in as one batch and a single event with the ids is published for all of them
+    private void publishAll(EmployeeChangeType type, List<Long> ids) {
+        List<EmployeeChange> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            changes.add(new EmployeeChange(0L, id, type, null));
+        }
+        changeRepository.insertAll(changes);
+        long firstSeq = Long.MAX_VALUE;
+        long lastSeq = Long.MIN_VALUE;
+        for (EmployeeChange change : changes) {
+            firstSeq = Math.min(firstSeq, change.getSeq());
+            lastSeq = Math.max(lastSeq, change.getSeq());
+        }
+        eventPublisher.publishEvent(new EmployeeBatchChangedEvent(type, ids, firstSeq, lastSeq));
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+            return constraintName != null && constraintName.toLowerCase().contains(Employee.EMAIL_INDEX);
         }
+        return false;
+    }
 
-        return employeeRepository.save(employee);
+    //one transaction per attempt: when the unique index still rejects an email (taken by a concurrent writer after
+    //the check) the attempt is rolled back as a whole and the next one reports that email as a DUPLICATE
+    @Override
+    public List<EmployeeBatchResult> saveEmployees(List<Employee> employees) {
+        long[] ids = new long[employees.size()];
+        for (int index = 0; index < ids.length; index++) {
+            ids[index] = employees.get(index).getId();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertEmployees(employees));
+            } catch (DataIntegrityViolationException e) {
+                if (!isDuplicateEmail(e)) {
+                    throw e;
+                }
+                if (attempt == SAVE_ATTEMPTS) {
+                    throw new ResourceNotFoundException("Employees already exist with some of the given emails", e);
+                }
+                //the rolled back inserts left their generated ids behind
+                for (int index = 0; index < ids.length; index++) {
+                    employees.get(index).setId(ids[index]);
+                    employees.get(index).setVersion(0L);
+                }
+            }
+        }
     }
 
+    private List<EmployeeBatchResult> insertEmployees(List<Employee> employees) {
+        //emails are unique ignoring case (the index under the default MySQL collation), so they are compared lower
+        //cased. The query gets the given spelling too and no lower() on the column, so it keeps using the index and
+        //still finds exact matches on a case-sensitive collation
+        Set<String> emails = new HashSet<>();
+        for (Employee employee : employees) {
+            if (employee.getEmail() != null) {
+                emails.add(employee.getEmail());
+                emails.add(employee.getEmail().toLowerCase(Locale.ROOT));
+            }
+        }
+        Set<String> takenEmails = new HashSet<>();
+        List<String> emailList = new ArrayList<>(emails);
+        for (int from = 0; from < emailList.size(); from += IN_CLAUSE_SIZE) {
+            for (String taken : employeeRepository.findExistingEmails(
+                    emailList.subList(from, Math.min(from + IN_CLAUSE_SIZE, emailList.size())))) {
+                takenEmails.add(taken.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        EmployeeBatchResult[] results = new EmployeeBatchResult[employees.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int index = 0; index < employees.size(); index++) {
+            Employee employee = employees.get(index);
+            if (employee.getFirstName() == null || employee.getLastName() == null || employee.getEmail() == null) {
+                results[index] = new EmployeeBatchResult(index, EmployeeBatchResult.Status.INVALID, employee,
+                        "firstName, lastName and email are required");
+            } else if (!takenEmails.add(employee.getEmail().toLowerCase(Locale.ROOT))) {
+                results[index] = new EmployeeBatchResult(index, EmployeeBatchResult.Status.DUPLICATE, employee,
+                        "Employee already exists with given email: " + employee.getEmail());
+            } else {
+                pending.add(index);
+            }
+        }
+
+        List<Long> createdIds = new ArrayList<>(pending.size());
+        for (int from = 0; from < pending.size(); from += INSERT_BATCH_SIZE) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + INSERT_BATCH_SIZE, pending.size()));
+            List<Employee> toSave = new ArrayList<>(chunk.size());
+            for (Integer index : chunk) {
+                toSave.add(employees.get(index));
+            }
+
+            //one JDBC batch per chunk, the ids are set on the given employees
+            employeeRepository.insertAll(toSave);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = new EmployeeBatchResult(chunk.get(i), EmployeeBatchResult.Status.CREATED, toSave.get(i), null);
+                createdIds.add(toSave.get(i).getId());
+            }
+        }
+        if (!createdIds.isEmpty()) {
+            publishAll(EmployeeChangeType.CREATED, createdIds);
+        }
+
+        return List.of(results);
+    }
+
+    //reads are read-only transactions so that, with replicas configured, they are routed away from the primary
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+        //capped so a single call can never load the whole table, use getEmployees to page through the rest
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, MAX_PAGE_SIZE));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeePage getEmployees(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        //fetch one extra row to know whether there is a next page
+        List<Employee> employees = employeeRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, pageSize + 1));
+        if (employees.size() <= pageSize) {
+            return new EmployeePage(employees, null, pageSize);
+        }
+
+        List<Employee> content = new ArrayList<>(employees.subList(0, pageSize));
+        return new EmployeePage(content, content.get(pageSize - 1).getId(), pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getEmployeeFields(Collection<String> fields, long after, int limit) {
+        return employeeRepository.findFieldsByIdGreaterThan(new LinkedHashSet<>(fields), after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportEmployees(Consumer<Employee> consumer) {
+        long count = 0;
+        try (Stream<Employee> employees = employeeRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Employee> iterator = employees.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+
+                //detach what has already been written so the persistence context does not grow with the table
+                if (++count % EmployeeRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
     }
 
+    //concurrent misses for the same key share one query (e.g. a popular employee right after an eviction).
+    //No transaction here: callers waiting for the shared result must not hold a connection, the repository
+    //methods run in their own read-only transaction. sync: the miss goes through VersionedCaffeineCache.get, which
+    //drops the row when a write to the same employee ran meanwhile (and does not cache an empty result)
     @Override
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEES, key = "#id", sync = true)
     public Optional<Employee> getEmployeeById(long id) {
-        return employeeRepository.findById(id);
+        return employeeByIdLoads.execute(id, () -> employeeRepository.findById(id));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEES_BY_EMAIL, key = "#email", sync = true)
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        return employeeByEmailLoads.execute(email, () -> employeeRepository.findByEmail(email));
+    }
+
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return searchIndex.search(query, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getEmployeeVersion(long id) {
+        return employeeRepository.findVersionById(id);
+    }
+
+    //on the primary: a replica that is behind can already have a settled change but not an earlier one
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeeChangeFeed getEmployeeChanges(long since, int limit) {
+        return ReplicaRoutingDataSource.onPrimary(() -> readEmployeeChanges(since, limit));
+    }
+
+    private EmployeeChangeFeed readEmployeeChanges(long since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        //the database clock, read before the changes: every transaction that took a seq in front of a change older
+        //than this has ended before the changes are read
+        Instant settled = changeRepository.currentTimestamp().toInstant().minus(changeFeedSettleTime);
+        List<EmployeeChange> rows = changeRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, pageSize + 1));
+
+        //the page ends at the first change younger than the settle time, even if older ones follow it: a seq that is
+        //still missing in front of it (a gap) may belong to a transaction that has not committed yet, and the cursor
+        //must never move past a change that can still show up. Gaps in front of a settled change are rolled back
+        //inserts and are passed
+        List<EmployeeChange> changes = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (EmployeeChange row : rows) {
+            if (changes.size() == pageSize || row.getChangedAt().isAfter(settled)) {
+                break;
+            }
+            changes.add(row);
+        }
+        //not when the page stopped at an unsettled change, the client should poll again later
+        boolean hasMore = changes.size() == pageSize && rows.size() > pageSize;
+
+        //only the latest change per employee matters, the current row is returned with it
+        Map<Long, EmployeeChange> latest = new LinkedHashMap<>();
+        for (EmployeeChange change : changes) {
+            latest.remove(change.getEmployeeId());
+            latest.put(change.getEmployeeId(), change);
+        }
+        Set<Long> ids = new HashSet<>();
+        for (EmployeeChange change : latest.values()) {
+            if (change.getType() != EmployeeChangeType.DELETED) {
+                ids.add(change.getEmployeeId());
+            }
+        }
+        Map<Long, Employee> employees = new HashMap<>();
+        for (Employee employee : employeeRepository.findAllById(ids)) {
+            employees.put(employee.getId(), employee);
+        }
+
+        List<EmployeeChangeFeed.Change> feed = new ArrayList<>(latest.size());
+        for (EmployeeChange change : latest.values()) {
+            Employee employee = employees.get(change.getEmployeeId());
+            //deleted by a later change, its tombstone comes in a following page
+            if (change.getType() != EmployeeChangeType.DELETED && employee == null) {
+                continue;
+            }
+            feed.add(new EmployeeChangeFeed.Change(change.getSeq(), change.getType(), change.getEmployeeId(), employee, change.getChangedAt()));
+        }
+
+        long nextToken = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new EmployeeChangeFeed(feed, nextToken, hasMore);
+    }
+
+    //the newest seq the change feed has settled: every change before it has ended, so a copy of the table read after
+    //this call has all of them and the feed from this seq brings the rest
+    @Transactional(readOnly = true)
+    public long getSettledChangeSeq() {
+        return ReplicaRoutingDataSource.onPrimary(() -> {
+            Instant settled = changeRepository.currentTimestamp().toInstant().minus(changeFeedSettleTime);
+            return changeRepository.findFirstByChangedAtLessThanEqualOrderBySeqDesc(settled).map(EmployeeChange::getSeq).orElse(0L);
+        });
     }
 
+    //updatedEmployee must not be the cached instance (see EmployeeController.updateEmployee), a failed save then
+    //leaves the cache on the committed row
     @Override
+    @Transactional(timeout = WRITE_TIMEOUT_SECONDS)
+    @Caching(
+            evict = {
+                    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_BY_EMAIL, allEntries = true)
+            },
+            put = @CachePut(cacheNames = CacheConfig.EMPLOYEES, key = "#result.id"))
     public Employee updatedEmployee(Employee updatedEmployee) {
-        return employeeRepository.save(updatedEmployee);
+        Employee savedEmployee = employeeRepository.save(updatedEmployee);
+        publish(EmployeeChangeType.UPDATED, savedEmployee.getId(), savedEmployee);
+        return savedEmployee;
     }
 
+    //only the non null fields of the given employee are written, without loading the entity first or reading it
+    //back: the event carries just the patched fields and listeners needing the whole row read it themselves
     @Override
-    public void deleteEmployee(long id) {
-        employeeRepository.deleteById(id);
+    @Transactional(timeout = WRITE_TIMEOUT_SECONDS)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_BY_EMAIL, allEntries = true)
+    })
+    public boolean patchEmployee(long id, Employee employee) {
+        try {
+            if (employeeRepository.updateEmployeeFields(id, employee.getFirstName(), employee.getLastName(), employee.getEmail()) == 0) {
+                return false;
+            }
+            Employee patched = Employee.builder()
+                    .id(id)
+                    .firstName(employee.getFirstName())
+                    .lastName(employee.getLastName())
+                    .email(employee.getEmail())
+                    .build();
+            publish(EmployeeChangeType.UPDATED, id, patched, true);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new ResourceNotFoundException("Employee already exists with given email: " + employee.getEmail(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(timeout = WRITE_TIMEOUT_SECONDS)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_BY_EMAIL, allEntries = true)
+    })
+    public boolean deleteEmployee(long id) {
+        if (employeeRepository.deleteEmployeeById(id) == 0) {
+            return false;
+        }
+        publish(EmployeeChangeType.DELETED, id, null);
+        return true;
+    }
+
+    @Override
+    @Transactional(timeout = WRITE_TIMEOUT_SECONDS)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_BY_EMAIL, allEntries = true)
+    })
+    public int deleteEmployees(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(new HashSet<>(ids));
+        //the bulk delete only returns a count, the ids that exist are read (and locked) first so only those get a
+        //tombstone in the change feed
+        List<Long> existingIds = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_SIZE) {
+            existingIds.addAll(employeeRepository.findExistingIdsForUpdate(idList.subList(from, Math.min(from + IN_CLAUSE_SIZE, idList.size()))));
+        }
+        int deleted = 0;
+        for (int from = 0; from < existingIds.size(); from += IN_CLAUSE_SIZE) {
+            deleted += employeeRepository.deleteEmployeesByIdIn(existingIds.subList(from, Math.min(from + IN_CLAUSE_SIZE, existingIds.size())));
+        }
+        if (!existingIds.isEmpty()) {
+            publishAll(EmployeeChangeType.DELETED, existingIds);
+        }
+        return deleted;
     }
 }
@@ -0,0 +1,166 @@
+package com.rodrigoguides.springboot.service.impl;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeePage;
+import com.rodrigoguides.springboot.repository.EmployeeRepositoryCustom;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import com.rodrigoguides.springboot.store.OffHeapEmployeeStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+//app.employee-store=off-heap: every read is answered from OffHeapEmployeeStore without a database round trip.
+//Writes still go through EmployeeServiceImpl, the table stays the source of truth (ids, unique emails, versions)
+//and the store picks the committed change up from the EmployeeChangedEvent before the write returns (the rows of bulk
+//writes and patches are read back right after)
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.employee-store", havingValue = "off-heap")
+public class OffHeapEmployeeService implements EmployeeService {
+
+    private static final int EXPORT_PAGE_SIZE = 1_000;
+
+    private final OffHeapEmployeeStore store;
+
+    private final EmployeeServiceImpl delegate;
+
+    public OffHeapEmployeeService(OffHeapEmployeeStore store, EmployeeServiceImpl delegate) {
+        this.store = store;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Employee saveEmployee(Employee employee) {
+        return delegate.saveEmployee(employee);
+    }
+
+    @Override
+    public List<EmployeeBatchResult> saveEmployees(List<Employee> employees) {
+        return delegate.saveEmployees(employees);
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        return store.page(0L, MAX_PAGE_SIZE);
+    }
+
+    @Override
+    public EmployeePage getEmployees(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Employee> employees = store.page(after, pageSize + 1);
+        if (employees.size() <= pageSize) {
+            return new EmployeePage(employees, null, pageSize);
+        }
+
+        List<Employee> content = new ArrayList<>(employees.subList(0, pageSize));
+        return new EmployeePage(content, content.get(pageSize - 1).getId(), pageSize);
+    }
+
+    @Override
+    public List<Map<String, Object>> getEmployeeFields(Collection<String> fields, long after, int limit) {
+        for (String field : fields) {
+            if (!EmployeeRepositoryCustom.PROJECTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown employee field: " + field);
+            }
+        }
+
+        List<Employee> employees = store.page(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<Map<String, Object>> result = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : fields) {
+                values.put(field, fieldValue(employee, field));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    private static Object fieldValue(Employee employee, String field) {
+        switch (field) {
+            case "id":
+                return employee.getId();
+            case "firstName":
+                return employee.getFirstName();
+            case "lastName":
+                return employee.getLastName();
+            case "email":
+                return employee.getEmail();
+            default:
+                return employee.getVersion();
+        }
+    }
+
+    @Override
+    public long exportEmployees(Consumer<Employee> consumer) {
+        long count = 0;
+        long after = 0;
+        List<Employee> page;
+        do {
+            page = store.page(after, EXPORT_PAGE_SIZE);
+            for (Employee employee : page) {
+                consumer.accept(employee);
+                after = employee.getId();
+            }
+            count += page.size();
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        return count;
+    }
+
+    @Override
+    public Optional<Employee> getEmployeeById(long id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        return Optional.ofNullable(store.getByEmail(email));
+    }
+
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return delegate.searchEmployees(query, limit);
+    }
+
+    @Override
+    public Optional<Long> getEmployeeVersion(long id) {
+        long version = store.getVersion(id);
+        return version < 0 ? Optional.empty() : Optional.of(version);
+    }
+
+    @Override
+    public EmployeeChangeFeed getEmployeeChanges(long since, int limit) {
+        return delegate.getEmployeeChanges(since, limit);
+    }
+
+    @Override
+    public Employee updatedEmployee(Employee updatedEmployee) {
+        return delegate.updatedEmployee(updatedEmployee);
+    }
+
+    @Override
+    public boolean patchEmployee(long id, Employee employee) {
+        return delegate.patchEmployee(id, employee);
+    }
+
+    @Override
+    public boolean deleteEmployee(long id) {
+        return delegate.deleteEmployee(id);
+    }
+
+    @Override
+    public int deleteEmployees(Collection<Long> ids) {
+        return delegate.deleteEmployees(ids);
+    }
+}
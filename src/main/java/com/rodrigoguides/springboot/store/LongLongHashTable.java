@@ -0,0 +1,147 @@
+package com.rodrigoguides.springboot.store;
+
+import java.util.function.LongPredicate;
+
+//open addressing (linear probing) long -> long table, two flat arrays and no boxed entries.
+//Key 0 marks an empty slot so it can not be stored. A key may be added more than once (hash indexes with
+//collisions), find and remove take the value into account to pick the right entry. Not thread safe.
+public final class LongLongHashTable {
+
+    public static final long NO_VALUE = -1;
+
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private int mask;
+
+    private int size;
+
+    private int resizeAt;
+
+    public LongLongHashTable(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(16, (long) (expectedSize / LOAD_FACTOR) + 1)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    public long get(long key) {
+        return find(key, value -> true);
+    }
+
+    //first value stored under key that matches, or NO_VALUE
+    long find(long key, LongPredicate matches) {
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && matches.test(values[slot])) {
+                return values[slot];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    public void add(long key, long value) {
+        if (size >= resizeAt) {
+            resize();
+        }
+        insert(key, value);
+        size++;
+    }
+
+    boolean replace(long key, long oldValue, long newValue) {
+        int slot = indexOf(key, oldValue);
+        if (slot < 0) {
+            return false;
+        }
+        values[slot] = newValue;
+        return true;
+    }
+
+    boolean remove(long key, long value) {
+        int slot = indexOf(key, value);
+        if (slot < 0) {
+            return false;
+        }
+        delete(slot);
+        size--;
+        return true;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    long heapBytes() {
+        return 16L * keys.length;
+    }
+
+    private int indexOf(long key, long value) {
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && values[slot] == value) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long key, long value) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    //backward shift deletion, entries after the gap move back unless that would put them before their home slot,
+    //so lookups never need tombstones
+    private void delete(int slot) {
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    interface EntryConsumer {
+
+        void accept(long key, long value);
+    }
+}
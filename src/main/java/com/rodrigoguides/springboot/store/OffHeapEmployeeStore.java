@@ -0,0 +1,424 @@
+package com.rodrigoguides.springboot.store;
+
+import com.rodrigoguides.springboot.model.Employee;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//employees kept as flat records in direct buffers, outside the Java heap, so millions of rows cost a few
+//large objects instead of millions of small ones for the GC to trace.
+//Record: id (8) | version (8) | first name, last name, email lengths (2 each, -1 for null) | UTF-8 bytes.
+//Records are append only, an update writes a new record and the old one becomes garbage until the next compaction.
+//Reads share a lock and never block each other; writes (rare, the table stays the source of truth) are exclusive.
+//Writers are serialized among themselves first, so a compaction can copy the records while reads go on and only
+//takes the exclusive lock to swap the copy in.
+@Component
+@ConditionalOnProperty(name = "app.employee-store", havingValue = "off-heap")
+public class OffHeapEmployeeStore {
+
+    static final int DEFAULT_SLAB_SIZE = 64 << 20;
+
+    private static final int HEADER_SIZE = 8 + 8 + 2 + 2 + 2;
+
+    private final int slabSize;
+
+    private List<ByteBuffer> slabs = new ArrayList<>();
+
+    //id -> slab index << 32 | position of the record
+    private LongLongHashTable offsets = new LongLongHashTable(1024);
+
+    //deleted ids. Ids come from a sequence and are never reused, so no version of a deleted employee is current
+    //again: a put that arrives after the delete (a late event, a feed page read before it) is rejected
+    private final LongLongHashTable deleted = new LongLongHashTable(1024);
+
+    //email hash -> id, collisions are resolved by comparing the email of the record
+    private final LongLongHashTable emails = new LongLongHashTable(1024);
+
+    //ids in ascending order for keyset paging; deleted ids stay until there are enough of them to rewrite the array
+    private long[] sortedIds = new long[1024];
+
+    private int sortedCount;
+
+    private int deletedIds;
+
+    private long liveBytes;
+
+    private long garbageBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object writes = new Object();
+
+    public OffHeapEmployeeStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    OffHeapEmployeeStore(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    public Employee get(long id) {
+        lock.readLock().lock();
+        try {
+            long offset = offsets.get(id);
+            return offset == LongLongHashTable.NO_VALUE ? null : read(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Employee getByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long id = emails.find(emailHash(email), candidate -> email.equals(readEmail(offsets.get(candidate))));
+            return id == LongLongHashTable.NO_VALUE ? null : read(offsets.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //-1 when there is no employee with the given id
+    public long getVersion(long id) {
+        lock.readLock().lock();
+        try {
+            long offset = offsets.get(id);
+            return offset == LongLongHashTable.NO_VALUE ? -1 : slab(offset).getLong(position(offset) + 8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //employees with an id greater than after, in id order
+    public List<Employee> page(long after, int limit) {
+        lock.readLock().lock();
+        try {
+            int index = Arrays.binarySearch(sortedIds, 0, sortedCount, after);
+            List<Employee> page = new ArrayList<>(Math.min(limit, 1024));
+            for (index = index >= 0 ? index + 1 : -index - 1; index < sortedCount && page.size() < limit; index++) {
+                long offset = offsets.get(sortedIds[index]);
+                if (offset != LongLongHashTable.NO_VALUE) {
+                    page.add(read(offset));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //false when the stored record is already at this version or a later one, or the employee was deleted: events of
+    //concurrent writes can arrive in any order, the row version decides which one is current
+    public boolean put(Employee employee) {
+        byte[] firstName = encode(employee.getFirstName());
+        byte[] lastName = encode(employee.getLastName());
+        byte[] email = encode(employee.getEmail());
+
+        synchronized (writes) {
+            if (!putRecord(employee, firstName, lastName, email)) {
+                return false;
+            }
+            compactIfNeeded();
+            return true;
+        }
+    }
+
+    private boolean putRecord(Employee employee, byte[] firstName, byte[] lastName, byte[] email) {
+        lock.writeLock().lock();
+        try {
+            long id = employee.getId();
+            if (deleted.get(id) != LongLongHashTable.NO_VALUE) {
+                return false;
+            }
+            long previous = offsets.get(id);
+            if (previous != LongLongHashTable.NO_VALUE && slab(previous).getLong(position(previous) + 8) >= employee.getVersion()) {
+                return false;
+            }
+            long offset = append(id, employee.getVersion(), firstName, lastName, email);
+            if (previous == LongLongHashTable.NO_VALUE) {
+                offsets.add(id, offset);
+                addSortedId(id);
+            } else {
+                String previousEmail = readEmail(previous);
+                if (previousEmail != null) {
+                    emails.remove(emailHash(previousEmail), id);
+                }
+                offsets.replace(id, previous, offset);
+                discard(previous);
+            }
+            if (employee.getEmail() != null) {
+                emails.add(emailHash(employee.getEmail()), id);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //false when there was no employee with the given id, it is marked deleted either way
+    public boolean remove(long id) {
+        synchronized (writes) {
+            if (!removeRecord(id)) {
+                return false;
+            }
+            compactIfNeeded();
+            return true;
+        }
+    }
+
+    private boolean removeRecord(long id) {
+        lock.writeLock().lock();
+        try {
+            if (deleted.get(id) == LongLongHashTable.NO_VALUE) {
+                deleted.add(id, 0L);
+            }
+            long offset = offsets.get(id);
+            if (offset == LongLongHashTable.NO_VALUE) {
+                return false;
+            }
+            String email = readEmail(offset);
+            if (email != null) {
+                emails.remove(emailHash(email), id);
+            }
+            offsets.remove(id, offset);
+            discard(offset);
+            if (++deletedIds > sortedCount / 4) {
+                compactSortedIds();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return offsets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //direct memory held by the record slabs
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (ByteBuffer slab : slabs) {
+                bytes += slab.capacity();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //heap held by the id, email, deleted id and ordering indexes, a handful of primitive arrays
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            return offsets.heapBytes() + emails.heapBytes() + deleted.heapBytes() + 8L * sortedIds.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long append(long id, long version, byte[] firstName, byte[] lastName, byte[] email) {
+        int size = HEADER_SIZE + length(firstName) + length(lastName) + length(email);
+        ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        if (slab == null || slab.remaining() < size) {
+            slab = ByteBuffer.allocateDirect(Math.max(slabSize, size));
+            slabs.add(slab);
+        }
+        long offset = (long) (slabs.size() - 1) << 32 | slab.position();
+        slab.putLong(id)
+                .putLong(version)
+                .putShort((short) (firstName == null ? -1 : firstName.length))
+                .putShort((short) (lastName == null ? -1 : lastName.length))
+                .putShort((short) (email == null ? -1 : email.length));
+        putBytes(slab, firstName);
+        putBytes(slab, lastName);
+        putBytes(slab, email);
+        liveBytes += size;
+        return offset;
+    }
+
+    private void discard(long offset) {
+        int size = recordSize(offset);
+        liveBytes -= size;
+        garbageBytes += size;
+    }
+
+    //rewrites the live records into fresh slabs once more than half of the allocated bytes are garbage. Called by a
+    //writer holding the writes monitor: nothing changes the records while they are copied, so reads go on against
+    //the old slabs and are only held up while the copy is swapped in
+    private void compactIfNeeded() {
+        if (garbageBytes < slabSize || garbageBytes < liveBytes) {
+            return;
+        }
+        List<ByteBuffer> oldSlabs = slabs;
+        List<ByteBuffer> newSlabs = new ArrayList<>();
+        LongLongHashTable newOffsets = new LongLongHashTable(offsets.size());
+        long[] newLiveBytes = new long[1];
+        offsets.forEach((id, offset) -> {
+            ByteBuffer record = oldSlabs.get((int) (offset >>> 32)).duplicate();
+            record.position(position(offset)).limit(position(offset) + recordSize(oldSlabs, offset));
+            newLiveBytes[0] += record.remaining();
+            newOffsets.add(id, appendRecord(newSlabs, record));
+        });
+
+        lock.writeLock().lock();
+        try {
+            slabs = newSlabs;
+            offsets = newOffsets;
+            liveBytes = newLiveBytes[0];
+            garbageBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long appendRecord(List<ByteBuffer> slabs, ByteBuffer record) {
+        int size = record.remaining();
+        ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        if (slab == null || slab.remaining() < size) {
+            slab = ByteBuffer.allocateDirect(Math.max(slabSize, size));
+            slabs.add(slab);
+        }
+        long offset = (long) (slabs.size() - 1) << 32 | slab.position();
+        slab.put(record);
+        return offset;
+    }
+
+    private void addSortedId(long id) {
+        if (sortedCount > 0 && id <= sortedIds[sortedCount - 1]) {
+            int index = Arrays.binarySearch(sortedIds, 0, sortedCount, id);
+            if (index >= 0) {
+                //the id was deleted earlier and is still in the array
+                deletedIds--;
+                return;
+            }
+            ensureSortedCapacity();
+            index = -index - 1;
+            System.arraycopy(sortedIds, index, sortedIds, index + 1, sortedCount - index);
+            sortedIds[index] = id;
+        } else {
+            //ids come from a sequence, so almost every insert is an append
+            ensureSortedCapacity();
+            sortedIds[sortedCount] = id;
+        }
+        sortedCount++;
+    }
+
+    private void ensureSortedCapacity() {
+        if (sortedCount == sortedIds.length) {
+            sortedIds = Arrays.copyOf(sortedIds, sortedIds.length + (sortedIds.length >> 1));
+        }
+    }
+
+    private void compactSortedIds() {
+        int live = 0;
+        for (int index = 0; index < sortedCount; index++) {
+            if (offsets.get(sortedIds[index]) != LongLongHashTable.NO_VALUE) {
+                sortedIds[live++] = sortedIds[index];
+            }
+        }
+        sortedCount = live;
+        deletedIds = 0;
+    }
+
+    private Employee read(long offset) {
+        ByteBuffer slab = slab(offset);
+        int position = position(offset);
+        short firstNameLength = slab.getShort(position + 16);
+        short lastNameLength = slab.getShort(position + 18);
+        short emailLength = slab.getShort(position + 20);
+        int firstName = position + HEADER_SIZE;
+        int lastName = firstName + Math.max(0, firstNameLength);
+        int email = lastName + Math.max(0, lastNameLength);
+        return Employee.builder()
+                .id(slab.getLong(position))
+                .version(slab.getLong(position + 8))
+                .firstName(decode(slab, firstName, firstNameLength))
+                .lastName(decode(slab, lastName, lastNameLength))
+                .email(decode(slab, email, emailLength))
+                .build();
+    }
+
+    private String readEmail(long offset) {
+        ByteBuffer slab = slab(offset);
+        int position = position(offset);
+        int email = position + HEADER_SIZE + Math.max(0, slab.getShort(position + 16)) + Math.max(0, slab.getShort(position + 18));
+        return decode(slab, email, slab.getShort(position + 20));
+    }
+
+    private int recordSize(long offset) {
+        return recordSize(slabs, offset);
+    }
+
+    private static int recordSize(List<ByteBuffer> slabs, long offset) {
+        ByteBuffer slab = slabs.get((int) (offset >>> 32));
+        int position = position(offset);
+        return HEADER_SIZE + Math.max(0, slab.getShort(position + 16)) + Math.max(0, slab.getShort(position + 18))
+                + Math.max(0, slab.getShort(position + 20));
+    }
+
+    private ByteBuffer slab(long offset) {
+        return slabs.get((int) (offset >>> 32));
+    }
+
+    private static int position(long offset) {
+        return (int) offset;
+    }
+
+    private static String decode(ByteBuffer slab, int position, short length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = slab.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Employee field too long for the off-heap store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer slab, byte[] bytes) {
+        if (bytes != null) {
+            slab.put(bytes);
+        }
+    }
+
+    //64 bit FNV-1a, 0 is remapped because the hash table uses it for empty slots
+    static long emailHash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash ^= email.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
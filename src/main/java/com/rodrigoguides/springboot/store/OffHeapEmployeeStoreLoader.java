@@ -0,0 +1,190 @@
+package com.rodrigoguides.springboot.store;
+
+import com.rodrigoguides.springboot.datasource.ReplicaRoutingDataSource;
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.search.EmployeeSearchIndex;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import com.rodrigoguides.springboot.service.impl.EmployeeServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//fills the off-heap store from the employees table and keeps it in line with committed writes.
+//Loading is a lifecycle phase before the embedded web server starts, so no request is served from a partial store.
+//Writes of this instance are applied when they commit; writes of other instances (and any event missed here) come
+//from tailing the change feed. The store orders both by version and deleted ids, so they may overlap.
+//The search index resolves its hits through the store, every change applied here is passed on to it
+@Component
+@ConditionalOnProperty(name = "app.employee-store", havingValue = "off-heap")
+public class OffHeapEmployeeStoreLoader implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapEmployeeStoreLoader.class);
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    //scalar rows only, loading entities would fill a persistence context per page for nothing
+    private static final Set<String> FIELDS = Set.of("id", "firstName", "lastName", "email", "version");
+
+    private final OffHeapEmployeeStore store;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final EmployeeSearchIndex searchIndex;
+
+    private final EmployeeServiceImpl employeeService;
+
+    private final Duration syncInterval;
+
+    private final ScheduledThreadPoolExecutor sync;
+
+    //change feed cursor, only used by the sync thread once the store is loaded
+    private long since;
+
+    private volatile boolean running;
+
+    public OffHeapEmployeeStoreLoader(OffHeapEmployeeStore store, EmployeeRepository employeeRepository,
+                                      EmployeeSearchIndex searchIndex, EmployeeServiceImpl employeeService,
+                                      @Value("${app.employee-store.sync-interval:1s}") Duration syncInterval) {
+        this.store = store;
+        this.employeeRepository = employeeRepository;
+        this.searchIndex = searchIndex;
+        this.employeeService = employeeService;
+        this.syncInterval = syncInterval;
+        this.sync = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "employee-store-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        //taken before the table is read: what changed before this seq is in the rows read below
+        since = employeeService.getSettledChangeSeq();
+        long after = 0;
+        List<Map<String, Object>> page;
+        do {
+            page = employeeRepository.findFieldsByIdGreaterThan(FIELDS, after, LOAD_PAGE_SIZE);
+            for (Map<String, Object> row : page) {
+                after = (Long) row.get("id");
+                put(Employee.builder()
+                        .id(after)
+                        .firstName((String) row.get("firstName"))
+                        .lastName((String) row.get("lastName"))
+                        .email((String) row.get("email"))
+                        .version((Long) row.get("version"))
+                        .build());
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        running = true;
+        long interval = syncInterval.toMillis();
+        sync.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Loaded {} employees into the off-heap store in {} ms ({} MB off heap, {} MB of indexes)", store.size(),
+                (System.nanoTime() - start) / 1_000_000, store.offHeapBytes() >> 20, store.heapBytes() >> 20);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        sync.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //before the web server, which starts in the last phases
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    //a patch only has the written fields, its row is read back on the sync thread like those of bulk writes
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event.getType() == EmployeeChangeType.DELETED) {
+            remove(event.getEmployeeId());
+        } else if (event.isPatch()) {
+            sync.execute(() -> reload(List.of(event.getEmployeeId())));
+        } else {
+            put(event.getEmployee());
+        }
+    }
+
+    //bulk writes: deletes are applied right away, the rows of the other changes are read back on the sync thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeesChanged(EmployeeBatchChangedEvent event) {
+        if (event.getType() == EmployeeChangeType.DELETED) {
+            for (Long id : event.getEmployeeIds()) {
+                remove(id);
+            }
+        } else {
+            sync.execute(() -> reload(event.getEmployeeIds()));
+        }
+    }
+
+    //from the primary, a replica may not have the rows yet. Rows that are gone again were deleted meanwhile, their
+    //delete is applied by its own event
+    void reload(List<Long> ids) {
+        try {
+            for (Employee employee : ReplicaRoutingDataSource.onPrimary(() -> employeeRepository.findAllById(ids))) {
+                put(employee);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read back {} employees, they are picked up from the change feed", ids.size(), e);
+        }
+    }
+
+    //catches up with the feed, an exception would cancel the schedule so the next run just tries again
+    void sync() {
+        try {
+            EmployeeChangeFeed feed;
+            do {
+                feed = employeeService.getEmployeeChanges(since, EmployeeService.MAX_PAGE_SIZE);
+                for (EmployeeChangeFeed.Change change : feed.getChanges()) {
+                    if (change.getType() == EmployeeChangeType.DELETED) {
+                        remove(change.getEmployeeId());
+                    } else {
+                        put(change.getEmployee());
+                    }
+                }
+                since = feed.getNextToken();
+            } while (feed.isHasMore() && running);
+        } catch (RuntimeException e) {
+            log.warn("Could not read the employee change feed after seq {}, retrying in {}", since, syncInterval, e);
+        }
+    }
+
+    //serialized so the employee the index drops is the one the store replaced
+    private synchronized void put(Employee employee) {
+        Employee previous = store.get(employee.getId());
+        if (store.put(employee)) {
+            searchIndex.update(previous, employee);
+        }
+    }
+
+    private synchronized void remove(long id) {
+        Employee previous = store.get(id);
+        if (store.remove(id)) {
+            searchIndex.update(previous, null);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.rodrigoguides.springboot.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//pushes committed employee changes to Server-Sent Events subscribers (GET /api/employees/stream).
+//Each change is serialized once and shared by every subscriber, its SSE id is the change feed seq. Subscribers get
+//a bounded queue that a few dispatcher threads drain, the committing thread only offers to the queues and never
+//waits on a client. A subscriber that falls buffer-size events behind gets a "resync" event and is disconnected,
+//its data is {"since":seq} with the last seq the client received (also the resync id): catch up through
+//GET /api/employees/changes?since=seq and reconnect. The writes to the response block, a client whose write does not
+//finish within write-timeout is dropped the same way (without the resync event, which could not be written either):
+//a watchdog thread removes it and adds a dispatcher thread for as long as the write is stuck, so the other
+//subscribers keep their threads. The stream ends once the blocked write returns.
+//Bulk writes (imports, bulk deletes) are one "batch" event with the type and ids of the changed employees and the
+//highest seq of the batch as its id, not an event per employee. A PATCH is an "updated" event with "patch":true and
+//only the fields that were written.
+@Component
+public class EmployeeChangeBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangeBroadcaster.class);
+
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    //comment line, keeps proxies from closing idle streams and finds clients that went away
+    private static final Message HEARTBEAT = new Message(-1L, -1L, null, null);
+
+    private final ObjectMapper objectMapper;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final Duration heartbeatInterval;
+
+    private final long writeTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ScheduledThreadPoolExecutor dispatcher;
+
+    private final int dispatcherThreads;
+
+    //dispatcher threads blocked in a write past the write timeout, the pool has that many threads on top
+    private int stuckWrites;
+
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    private final Counter slowSubscribers;
+
+    private final Counter writeTimeouts;
+
+    public EmployeeChangeBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                     @Value("${app.stream.buffer-size:256}") int bufferSize,
+                                     @Value("${app.stream.max-subscribers:10000}") int maxSubscribers,
+                                     @Value("${app.stream.dispatcher-threads:2}") int dispatcherThreads,
+                                     @Value("${app.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                     @Value("${app.stream.write-timeout:5s}") Duration writeTimeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatInterval = heartbeatInterval;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.dispatcherThreads = dispatcherThreads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = new ScheduledThreadPoolExecutor(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "employee-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "employee-stream-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("employees.stream.subscribers", subscriberCount);
+        this.slowSubscribers = meterRegistry.counter("employees.stream.slow.subscribers");
+        this.writeTimeouts = meterRegistry.counter("employees.stream.write.timeouts");
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = heartbeatInterval.toMillis();
+        dispatcher.scheduleWithFixedDelay(() -> broadcast(HEARTBEAT), interval, interval, TimeUnit.MILLISECONDS);
+        long check = Math.max(TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos) / 2, 10L);
+        watchdog.scheduleWithFixedDelay(this::expireStuckWrites, check, check, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    //empty when max-subscribers streams are already open
+    public Optional<SseEmitter> subscribe() {
+        //no timeout of its own: the heartbeat finds dead connections and clients reconnect after
+        //spring.mvc.async.request-timeout
+        return subscribe(new SseEmitter());
+    }
+
+    Optional<SseEmitter> subscribe(SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(error -> subscriber.remove());
+        return Optional.of(emitter);
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            broadcast(new Message(event.getSeq(), event.getSeq(), event.getType().name().toLowerCase(Locale.ROOT),
+                    objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize employee change {} for streaming", event.getEmployeeId(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeesChanged(EmployeeBatchChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            broadcast(new Message(event.getFirstSeq(), event.getLastSeq(), "batch", objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} employee changes for streaming", event.getEmployeeIds().size(), e);
+        }
+    }
+
+    private void broadcast(Message message) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    //runs on the watchdog thread
+    void expireStuckWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.expireIfStuck(now)) {
+                writeTimeouts.increment();
+                subscriber.remove();
+                subscriber.queue.clear();
+                resizeDispatcher(1);
+            }
+        }
+    }
+
+    private synchronized void resizeDispatcher(int stuckWritesDelta) {
+        stuckWrites += stuckWritesDelta;
+        dispatcher.setCorePoolSize(dispatcherThreads + stuckWrites);
+    }
+
+    //an event as queued for the subscribers; the SseEventBuilder is made per send since build() is not repeatable
+    private static final class Message {
+
+        //lowest seq of the message, only a batch has more than one
+        private final long firstSeq;
+
+        private final long seq;
+
+        //null for the heartbeat comment
+        private final String name;
+
+        private final String json;
+
+        private Message(long firstSeq, long seq, String name, String json) {
+            this.firstSeq = firstSeq;
+            this.seq = seq;
+            this.name = name;
+            this.json = json;
+        }
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("");
+            }
+            return SseEmitter.event().id(String.valueOf(seq)).name(name).data(json, TEXT_PLAIN_UTF8);
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        private volatile boolean overflowed;
+
+        //seq of the last change sent, or the one before the first change offered; -1 until a change is offered
+        private volatile long lastSeq = -1L;
+
+        //the write in progress, guarded by this
+        private boolean writing;
+
+        private long writeStartedAt;
+
+        private boolean writeExpired;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Message message) {
+            if (overflowed || removed.get()) {
+                return;
+            }
+            if (lastSeq < 0 && message != HEARTBEAT) {
+                lastSeq = message.firstSeq - 1;
+            }
+            if (!queue.offer(message)) {
+                overflowed = true;
+                slowSubscribers.increment();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //shutting down, the emitters are completed by shutdown()
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        //runs on a dispatcher thread, at most once at a time per subscriber so frames keep their order
+        @Override
+        public void run() {
+            try {
+                if (overflowed) {
+                    queue.clear();
+                    SseEmitter.SseEventBuilder resync = SseEmitter.event();
+                    if (lastSeq >= 0) {
+                        resync.id(String.valueOf(lastSeq));
+                    }
+                    send(resync.name("resync").data("{\"since\":" + Math.max(lastSeq, 0L) + "}", TEXT_PLAIN_UTF8));
+                    //removed first, so the subscriber count is already down once the client sees the stream end
+                    remove();
+                    emitter.complete();
+                    return;
+                }
+                Message message;
+                while (!overflowed && !removed.get() && (message = queue.poll()) != null) {
+                    send(message.toEvent());
+                    if (message != HEARTBEAT) {
+                        lastSeq = message.seq;
+                    }
+                }
+                if (removed.get()) {
+                    //expired by the watchdog while writing
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                //client went away or the request already completed
+                emitter.completeWithError(e);
+                remove();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() || overflowed) {
+                schedule();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                writing = true;
+                writeStartedAt = System.nanoTime();
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                boolean expired;
+                synchronized (this) {
+                    writing = false;
+                    expired = writeExpired;
+                    writeExpired = false;
+                }
+                if (expired) {
+                    resizeDispatcher(-1);
+                }
+            }
+        }
+
+        //true once per write that has been blocked for longer than the write timeout
+        private synchronized boolean expireIfStuck(long now) {
+            if (!writing || writeExpired || now - writeStartedAt < writeTimeoutNanos) {
+                return false;
+            }
+            writeExpired = true;
+            return true;
+        }
+
+        private void remove() {
+            if (removed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rodrigoguides.springboot;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("fast")
+public class FastProfileTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    //the ddl-auto the main property files (without the test overrides) resolve to for the given profiles
+    private static String ddlAuto(String... profiles) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Object.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.location=classpath:/")
+                .profiles(profiles)
+                .run()) {
+            return context.getEnvironment().getProperty("spring.jpa.hibernate.ddl-auto");
+        }
+    }
+
+    //Smoke test for starting with the fast profile: lazy beans and deferred repositories still serve requests
+    @DisplayName("Smoke test for starting with the fast profile")
+    @Test
+    public void givenFastProfile_whenGetEmployeeById_thenReturnEmployee() throws Exception {
+        //given - precondition or setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera.fast@gmail.com")
+                .build());
+
+        //when - action or the behaviour we are going to test
+        mockMvc.perform(get("/api/employees/{id}", employee.getId()))
+
+        //then - verify the output
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is(employee.getEmail())));
+        employeeRepository.delete(employee);
+    }
+
+    //JUnit test for the schema setting of the fast profile with and without prod
+    @DisplayName("JUnit test for the schema setting of the fast profile with and without prod")
+    @Test
+    public void givenFastProfile_whenResolveDdlAuto_thenOnlySkipTheProdSchemaCheck() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        String fastOnly = ddlAuto("fast");
+        String prodOnly = ddlAuto("prod");
+        String prodThenFast = ddlAuto("prod", "fast");
+        String fastThenProd = ddlAuto("fast", "prod");
+
+        //then - verify the output
+        assertThat(fastOnly).isEqualTo("update");
+        assertThat(prodOnly).isEqualTo("validate");
+        assertThat(prodThenFast).isEqualTo("none");
+        assertThat(fastThenProd).isEqualTo("none");
+    }
+}
@@ -0,0 +1,124 @@
+package com.rodrigoguides.springboot.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTests {
+
+    private static final int CALLERS = 32;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    //blocks until every caller is parked, either running the call (the leader) or waiting for its result
+    static void awaitParked(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    //JUnit test for coalescing concurrent calls for the same key
+    @DisplayName("JUnit test for coalescing concurrent calls for the same key")
+    @Test
+    public void givenConcurrentCallsForSameKey_whenExecute_thenRunCallOnce() throws Exception {
+        //given - precondition or setup
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS, runnable -> {
+            Thread thread = new Thread(runnable);
+            threads.add(thread);
+            return thread;
+        });
+
+        //when - action or the behaviour we are going to test
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("rodrigo", () -> {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "Rodrigo";
+            })));
+        }
+        awaitParked(threads);
+        release.countDown();
+
+        //then - verify the output
+        for (Future<String> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("Rodrigo");
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+        executor.shutdown();
+    }
+
+    //JUnit test for running the call again once the previous one completed
+    @DisplayName("JUnit test for running the call again once the previous one completed")
+    @Test
+    public void givenCompletedCall_whenExecuteAgain_thenRunCallAgain() {
+        //given - precondition or setup
+        AtomicInteger calls = new AtomicInteger();
+
+        //when - action or the behaviour we are going to test
+        singleFlight.execute("rodrigo", () -> "Rodrigo" + calls.incrementAndGet());
+        String value = singleFlight.execute("rodrigo", () -> "Rodrigo" + calls.incrementAndGet());
+
+        //then - verify the output
+        assertThat(value).isEqualTo("Rodrigo2");
+        assertThat(singleFlight.execute("domingo", () -> "Domingo")).isEqualTo("Domingo");
+    }
+
+    //JUnit test for sharing the failure of a call with the waiting callers
+    @DisplayName("JUnit test for sharing the failure of a call with the waiting callers")
+    @Test
+    public void givenFailingCall_whenExecuteConcurrently_thenEveryCallerGetsTheException() throws Exception {
+        //given - precondition or setup
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable);
+            threads.add(thread);
+            return thread;
+        });
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("rodrigo", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IllegalArgumentException("database unavailable");
+            })));
+        }
+        awaitParked(threads);
+
+        //when - action or the behaviour we are going to test
+        release.countDown();
+
+        //then - verify the output
+        for (Future<String> result : results) {
+            Exception exception = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertThat(exception).hasCauseInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(singleFlight.inFlight()).isZero();
+        executor.shutdown();
+    }
+}
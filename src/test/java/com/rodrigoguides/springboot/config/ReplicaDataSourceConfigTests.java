@@ -0,0 +1,57 @@
+package com.rodrigoguides.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaDataSourceConfigTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(DataSourcePropertiesConfig.class, ReplicaDataSourceConfig.class)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primary",
+                    "spring.datasource.hikari.minimum-idle=2",
+                    "spring.datasource.hikari.maximum-pool-size=7",
+                    "spring.datasource.hikari.pool-name=primary");
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+
+    //JUnit test for the replica pools being beans with the shared Hikari settings
+    @DisplayName("JUnit test for the replica pools being beans with the shared Hikari settings")
+    @Test
+    public void givenReplicas_whenStartContext_thenRegisterReplicaPoolsWithHikariSettings() {
+        //given - precondition or setup
+        AtomicReference<HikariDataSource> closedReplica = new AtomicReference<>();
+
+        //when - action or the behaviour we are going to test
+        contextRunner.withPropertyValues("app.datasource.replicas[0].url=jdbc:h2:mem:replica0",
+                "app.datasource.replicas[1].url=jdbc:h2:mem:replica1",
+                "app.datasource.replicas[1].maximum-pool-size=3").run(context -> {
+
+            //then - verify the output
+            assertThat(context).hasNotFailed();
+            assertThat(context).getBeans(HikariDataSource.class).hasSize(3);
+            HikariDataSource replica0 = context.getBean("replicaDataSource0", HikariDataSource.class);
+            HikariDataSource replica1 = context.getBean("replicaDataSource1", HikariDataSource.class);
+            assertThat(replica0.getPoolName()).isEqualTo("replica-0");
+            assertThat(replica0.getMinimumIdle()).isEqualTo(2);
+            assertThat(replica0.getMaximumPoolSize()).isEqualTo(7);
+            assertThat(replica0.isReadOnly()).isTrue();
+            assertThat(replica1.getJdbcUrl()).isEqualTo("jdbc:h2:mem:replica1");
+            assertThat(replica1.getMaximumPoolSize()).isEqualTo(3);
+            replica0.getConnection().close();
+            closedReplica.set(replica0);
+        });
+        assertThat(closedReplica.get().isClosed()).isTrue();
+    }
+}
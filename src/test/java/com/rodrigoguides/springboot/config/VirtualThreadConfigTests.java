@@ -0,0 +1,74 @@
+package com.rodrigoguides.springboot.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadConfigTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    //JUnit test for the default, virtual threads off
+    @DisplayName("JUnit test for the default, virtual threads off")
+    @Test
+    public void givenVirtualThreadsDisabled_whenStartContext_thenNoVirtualThreadBeans() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        contextRunner.withPropertyValues("app.virtual-threads.enabled=false").run(context -> {
+
+            //then - verify the output
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(ExecutorService.class);
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+            assertThat(context).doesNotHaveBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+        });
+    }
+
+    //negative scenario - the runtime is older than Java 21 (the Java 11 baseline, the Java 17 builds)
+    //JUnit test for enabling virtual threads on a runtime without them
+    @DisplayName("JUnit test for enabling virtual threads on a runtime without them")
+    @Test
+    public void givenVirtualThreadsEnabledBeforeJava21_whenStartContext_thenStartOnPlatformThreads() {
+        //given - precondition or setup
+        assumeTrue(Runtime.version().feature() < VirtualThreadConfig.MIN_JAVA_VERSION);
+
+        //when - action or the behaviour we are going to test
+        contextRunner.withPropertyValues("app.virtual-threads.enabled=true").run(context -> {
+
+            //then - verify the output
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(ExecutorService.class);
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+        });
+    }
+
+    //JUnit test for enabling virtual threads on Java 21 or newer
+    @DisplayName("JUnit test for enabling virtual threads on Java 21 or newer")
+    @Test
+    public void givenVirtualThreadsEnabledOnJava21_whenStartContext_thenRunTasksOnVirtualThreads() {
+        //given - precondition or setup
+        assumeTrue(Runtime.version().feature() >= VirtualThreadConfig.MIN_JAVA_VERSION);
+
+        //when - action or the behaviour we are going to test
+        contextRunner.withPropertyValues("app.virtual-threads.enabled=true").run(context -> {
+
+            //then - verify the output
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+            AsyncTaskExecutor executor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+            Future<Object> isVirtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            assertThat(isVirtual.get()).isEqualTo(true);
+        });
+    }
+}
@@ -1,21 +1,39 @@
 package com.rodrigoguides.springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.rodrigoguides.springboot.exception.ResourceNotFoundException;
+import com.rodrigoguides.springboot.ingest.EmployeeCsvImporter;
 import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.model.EmployeeImportStatus;
+import com.rodrigoguides.springboot.model.EmployeePage;
 import com.rodrigoguides.springboot.service.EmployeeService;
+import com.rodrigoguides.springboot.stream.EmployeeChangeBroadcaster;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.mockito.ArgumentMatchers;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.mockito.BDDMockito.*;
@@ -23,6 +41,7 @@ import static org.mockito.BDDMockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
 import static org.hamcrest.CoreMatchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @WebMvcTest
 public class EmployeeControllerTests {
@@ -33,6 +52,12 @@ public class EmployeeControllerTests {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeChangeBroadcaster changeBroadcaster;
+
+    @MockBean
+    private EmployeeCsvImporter employeeCsvImporter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -63,6 +88,58 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    //JUnit test for EmployeeController createEmployee method with existing email
+    @DisplayName("JUnit test for EmployeeController createEmployee method with existing email")
+    @Test
+    public void givenExistingEmail_whenCreateEmployee_thenReturn409() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willThrow(new ResourceNotFoundException("Employee already exists with given email: " + employee.getEmail()));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    //JUnit test for EmployeeController createEmployees method
+    @DisplayName("JUnit test for EmployeeController createEmployees method")
+    @Test
+    public void givenListOfEmployees_whenCreateEmployees_thenReturnResultPerEmployee() throws Exception {
+        //given - precondition or setup
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        listOfEmployees.add(Employee.builder().firstName("Domingo").lastName("Rivera").email("rodrigo.orelana@gmail.com").build());
+        given(employeeService.saveEmployees(ArgumentMatchers.anyList())).willAnswer((invocation) -> {
+            List<Employee> employees = invocation.getArgument(0);
+            return List.of(
+                    new EmployeeBatchResult(0, EmployeeBatchResult.Status.CREATED, employees.get(0), null),
+                    new EmployeeBatchResult(1, EmployeeBatchResult.Status.DUPLICATE, employees.get(1), "Employee already exists"));
+        });
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(listOfEmployees)));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$[1].index", is(1)));
+    }
+
     //JUnit test for EmployeeController getAllEmployees method
     @DisplayName("JUnit test for EmployeeController getAllEmployees method")
     @Test
@@ -82,6 +159,148 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.size()", is(listOfEmployees.size())));
     }
 
+    //JUnit test for EmployeeController getAllEmployees method with a full page
+    @DisplayName("JUnit test for EmployeeController getAllEmployees method with a full page")
+    @Test
+    public void givenMoreEmployeesThanPageSize_whenGetAllEmployees_thenReturnNextLink() throws Exception {
+        //given - precondition or setup
+        List<Employee> firstPage = new ArrayList<>();
+        List<Employee> secondPage = new ArrayList<>();
+        for (long id = 1; id <= EmployeeService.MAX_PAGE_SIZE; id++) {
+            firstPage.add(Employee.builder().id(id).firstName("First" + id).lastName("Last").email("first" + id + "@gmail.com").build());
+        }
+        secondPage.add(Employee.builder().id(1001L).firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        given(employeeService.getAllEmployees()).willReturn(firstPage);
+        given(employeeService.getEmployees(1000L, EmployeeService.MAX_PAGE_SIZE)).willReturn(new EmployeePage(secondPage, null, EmployeeService.MAX_PAGE_SIZE));
+
+        //when - action or the behaviour we are going to test
+        ResultActions first = mockMvc.perform(get("/api/employees"));
+        ResultActions second = mockMvc.perform(get("/api/employees").param("after", "1000"));
+
+        //then - verify the output
+        first.andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/api/employees?after=1000>; rel=\"next\""))
+                .andExpect(jsonPath("$.size()", is(EmployeeService.MAX_PAGE_SIZE)));
+        second.andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
+                .andExpect(jsonPath("$[0].id", is(1001)));
+    }
+
+    //JUnit test for EmployeeController getEmployeesPage method
+    @DisplayName("JUnit test for EmployeeController getEmployeesPage method")
+    @Test
+    public void givenAfterAndLimit_whenGetEmployeesPage_thenReturnPageWithNextCursor() throws Exception {
+        //given - precondition or setup
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(11L).firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        listOfEmployees.add(Employee.builder().id(12L).firstName("Domingo").lastName("Rivera").email("domingo.rivera@gmail.com").build());
+        given(employeeService.getEmployees(10L, 2)).willReturn(new EmployeePage(listOfEmployees, 12L, 2));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/page")
+                .param("after", "10")
+                .param("limit", "2"));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.content.size()", is(listOfEmployees.size())))
+                .andExpect(jsonPath("$.nextCursor", is(12)))
+                .andExpect(jsonPath("$.limit", is(2)));
+    }
+
+    //JUnit test for EmployeeController getEmployeeFields method
+    @DisplayName("JUnit test for EmployeeController getEmployeeFields method")
+    @Test
+    public void givenFields_whenGetEmployeeFields_thenReturnOnlyRequestedFields() throws Exception {
+        //given - precondition or setup
+        List<Map<String, Object>> rows = List.of(
+                Map.of("id", 1L, "email", "rodrigo.orelana@gmail.com"),
+                Map.of("id", 2L, "email", "domingo.rivera@gmail.com"));
+        given(employeeService.getEmployeeFields(List.of("id", "email"), 0L, EmployeeService.MAX_PAGE_SIZE)).willReturn(rows);
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("fields", "id,email"));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(rows.size())))
+                .andExpect(jsonPath("$[1].email", is("domingo.rivera@gmail.com")))
+                .andExpect(jsonPath("$[1].firstName").doesNotExist());
+    }
+
+    //JUnit test for EmployeeController getEmployeeFields method - unknown field
+    @DisplayName("JUnit test for EmployeeController getEmployeeFields method - unknown field")
+    @Test
+    public void givenUnknownField_whenGetEmployeeFields_thenReturnBadRequest() throws Exception {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("fields", "id,salary"));
+
+        //then - verify the output
+        response.andExpect(status().isBadRequest())
+                .andDo(print());
+        verify(employeeService, never()).getEmployeeFields(ArgumentMatchers.any(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt());
+    }
+
+    //JUnit test for EmployeeController exportEmployees method
+    @DisplayName("JUnit test for EmployeeController exportEmployees method")
+    @Test
+    public void givenListOfEmployees_whenExportEmployees_thenReturnNewlineDelimitedJson() throws Exception {
+        //given - precondition or setup
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(1L).firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        listOfEmployees.add(Employee.builder().id(2L).firstName("Domingo").lastName("Rivera").email("domingo.rivera@gmail.com").build());
+        given(employeeService.exportEmployees(ArgumentMatchers.any())).willAnswer((invocation) -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            listOfEmployees.forEach(consumer);
+            return (long) listOfEmployees.size();
+        });
+
+        //when - action or the behaviour we are going to test
+        MvcResult mvcResult = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(mvcResult));
+
+        //then - verify the output
+        String expected = objectMapper.writeValueAsString(listOfEmployees.get(0)) + "\n"
+                + objectMapper.writeValueAsString(listOfEmployees.get(1)) + "\n";
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expected));
+    }
+
+    //JUnit test for EmployeeController exportEmployeesAsArray method
+    @DisplayName("JUnit test for EmployeeController exportEmployeesAsArray method")
+    @Test
+    public void givenListOfEmployees_whenExportEmployeesAsJson_thenReturnJsonArray() throws Exception {
+        //given - precondition or setup
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(1L).firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        listOfEmployees.add(Employee.builder().id(2L).firstName("Domingo").lastName("Rivera").email("domingo.rivera@gmail.com").build());
+        given(employeeService.exportEmployees(ArgumentMatchers.any())).willAnswer((invocation) -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            listOfEmployees.forEach(consumer);
+            return (long) listOfEmployees.size();
+        });
+
+        //when - action or the behaviour we are going to test
+        MvcResult mvcResult = mockMvc.perform(get("/api/employees/export").param("format", "json"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(mvcResult));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(listOfEmployees), true));
+    }
+
     //positive scenario - valid employee id
     //JUnit test for EmployeeController getEmployee by method
     @Test
@@ -106,6 +325,128 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    //JUnit test for EmployeeController getEmployee by method in CBOR
+    @DisplayName("JUnit test for EmployeeController getEmployee by method in CBOR")
+    @Test
+    public void givenCborAccept_whenGetEmployeeById_thenReturnCborEmployee() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee employee = Employee.builder()
+                .id(employeeId)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employeeId).accept(MediaType.APPLICATION_CBOR));
+
+        //then - verify the output
+        MvcResult result = response.andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        Employee decoded = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), Employee.class);
+        assertThat(decoded.getEmail()).isEqualTo(employee.getEmail());
+    }
+
+    //JUnit test for EmployeeController createEmployee method in Smile
+    @DisplayName("JUnit test for EmployeeController createEmployee method in Smile")
+    @Test
+    public void givenSmileEmployee_whenCreateEmployee_thenReturnSmileEmployee() throws Exception {
+        //given - precondition or setup
+        SmileMapper smileMapper = new SmileMapper();
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willAnswer((invocation) -> invocation.getArgument(0));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(smile)
+                .accept(smile)
+                .content(smileMapper.writeValueAsBytes(employee)));
+
+        //then - verify the output
+        MvcResult result = response.andExpect(status().isCreated())
+                .andExpect(content().contentType(smile))
+                .andReturn();
+        Employee decoded = smileMapper.readValue(result.getResponse().getContentAsByteArray(), Employee.class);
+        assertThat(decoded.getFirstName()).isEqualTo(employee.getFirstName());
+    }
+
+    //JUnit test for EmployeeController getEmployee by method returning the version as ETag
+    @DisplayName("JUnit test for EmployeeController getEmployee by method returning the version as ETag")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnVersionETag() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(3L)
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employeeId));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    //JUnit test for EmployeeController getEmployee by method with current ETag
+    @DisplayName("JUnit test for EmployeeController getEmployee by method with current ETag")
+    @Test
+    public void givenCurrentETag_whenGetEmployeeById_thenReturn304() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.getEmployeeVersion(employeeId)).willReturn(Optional.of(3L));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        //then - verify the output
+        response.andExpect(status().isNotModified())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        verify(employeeService, never()).getEmployeeById(employeeId);
+    }
+
+    //JUnit test for EmployeeController getEmployee by method with stale ETag
+    @DisplayName("JUnit test for EmployeeController getEmployee by method with stale ETag")
+    @Test
+    public void givenStaleETag_whenGetEmployeeById_thenReturnEmployeeObject() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(4L)
+                .build();
+        given(employeeService.getEmployeeVersion(employeeId)).willReturn(Optional.of(4L));
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.firstName", is(employee.getFirstName())));
+    }
+
     //negative scenario - invalid employee id
     //JUnit test for EmployeeController getEmployee by method
     @Test
@@ -127,6 +468,114 @@ public class EmployeeControllerTests {
                 .andDo(print());
     }
 
+    //JUnit test for EmployeeController getEmployeeByEmail method
+    @DisplayName("JUnit test for EmployeeController getEmployeeByEmail method")
+    @Test
+    public void givenEmployeeEmail_whenGetEmployeeByEmail_thenEmployeeObject() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("email", employee.getEmail()));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.firstName", is(employee.getFirstName())))
+                .andExpect(jsonPath("$.email", is(employee.getEmail())));
+    }
+
+    //JUnit test for EmployeeController searchEmployees method
+    @DisplayName("JUnit test for EmployeeController searchEmployees method")
+    @Test
+    public void givenSearchQuery_whenSearchEmployees_thenReturnMatchingEmployees() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeService.searchEmployees("dom riv", 5)).willReturn(List.of(employee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/search").param("q", "dom riv").param("limit", "5"));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].email", is(employee.getEmail())));
+    }
+
+    //JUnit test for EmployeeController getEmployeeChanges method
+    @DisplayName("JUnit test for EmployeeController getEmployeeChanges method")
+    @Test
+    public void givenSinceToken_whenGetEmployeeChanges_thenReturnChangesAndNextToken() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        Instant changedAt = Instant.parse("2026-01-01T10:00:00Z");
+        given(employeeService.getEmployeeChanges(41L, 2)).willReturn(new EmployeeChangeFeed(List.of(
+                new EmployeeChangeFeed.Change(42L, EmployeeChangeType.UPDATED, 1L, employee, changedAt),
+                new EmployeeChangeFeed.Change(43L, EmployeeChangeType.DELETED, 7L, null, changedAt)), 43L, true));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes").param("since", "41").param("limit", "2"));
+
+        //then - verify the output
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.changes.size()", is(2)))
+                .andExpect(jsonPath("$.changes[0].employee.email", is(employee.getEmail())))
+                .andExpect(jsonPath("$.changes[1].type", is("DELETED")))
+                .andExpect(jsonPath("$.changes[1].employeeId", is(7)))
+                .andExpect(jsonPath("$.changes[1].changedAt", is("2026-01-01T10:00:00Z")))
+                .andExpect(jsonPath("$.nextToken", is(43)))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+    }
+
+    //JUnit test for EmployeeController streamEmployeeChanges method
+    @DisplayName("JUnit test for EmployeeController streamEmployeeChanges method")
+    @Test
+    public void givenSubscriber_whenStreamEmployeeChanges_thenOpenEventStream() throws Exception {
+        //given - precondition or setup
+        given(changeBroadcaster.subscribe()).willReturn(Optional.of(new SseEmitter()));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/stream").accept(MediaType.TEXT_EVENT_STREAM));
+
+        //then - verify the output
+        response.andExpect(request().asyncStarted())
+                .andExpect(status().isOk());
+        verify(changeBroadcaster).subscribe();
+    }
+
+    //negative scenario - subscriber limit reached
+    //JUnit test for EmployeeController streamEmployeeChanges method
+    @DisplayName("JUnit test for EmployeeController streamEmployeeChanges method (subscriber limit reached)")
+    @Test
+    public void givenSubscriberLimitReached_whenStreamEmployeeChanges_thenReturn503() throws Exception {
+        //given - precondition or setup
+        given(changeBroadcaster.subscribe()).willReturn(Optional.empty());
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/stream").accept(MediaType.TEXT_EVENT_STREAM));
+
+        //then - verify the output
+        response.andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
     //positive scenario - valid employee id
     //JUnit test for EmployeeController updateEmployee by method
     @DisplayName("JUnit test for EmployeeController updateEmployee by method")
@@ -158,7 +607,136 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.firstName", is(updatedEmployee.getFirstName())))
                 .andExpect(jsonPath("$.lastName", is(updatedEmployee.getLastName())))
                 .andExpect(jsonPath("$.email", is(updatedEmployee.getEmail())));
+        //the instance getEmployeeById returned (the cached one) is left as it was
+        assertThat(savedEmployee.getFirstName()).isEqualTo("Domingo");
+        assertThat(savedEmployee.getEmail()).isEqualTo("domingo.rivera@gmail.com");
+
+    }
+
+    //JUnit test for EmployeeController updateEmployee by method with stale If-Match
+    @DisplayName("JUnit test for EmployeeController updateEmployee by method with stale If-Match")
+    @Test
+    public void givenStaleIfMatch_whenUpdateEmployee_thenReturn412() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(4L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("ramon.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        response.andExpect(status().isPreconditionFailed())
+                .andDo(print());
+        verify(employeeService, never()).updatedEmployee(ArgumentMatchers.any(Employee.class));
+    }
+
+    //negative scenario - a weak entity tag never passes If-Match, even for the current version
+    //JUnit test for EmployeeController updateEmployee by method with weak If-Match
+    @DisplayName("JUnit test for EmployeeController updateEmployee by method with weak If-Match")
+    @Test
+    public void givenWeakIfMatch_whenUpdateEmployee_thenReturn412() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(3L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("ramon.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        response.andExpect(status().isPreconditionFailed())
+                .andDo(print());
+        verify(employeeService, never()).updatedEmployee(ArgumentMatchers.any(Employee.class));
+    }
+
+    //JUnit test for EmployeeController updateEmployee by method with concurrent update
+    @DisplayName("JUnit test for EmployeeController updateEmployee by method with concurrent update")
+    @Test
+    public void givenConcurrentUpdate_whenUpdateEmployee_thenReturn412() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(3L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("ramon.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.updatedEmployee(ArgumentMatchers.any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employeeId));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        response.andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
+    //JUnit test for EmployeeController updateEmployee by method with concurrent update and no If-Match
+    @DisplayName("JUnit test for EmployeeController updateEmployee by method with concurrent update and no If-Match")
+    @Test
+    public void givenConcurrentUpdateWithoutIfMatch_whenUpdateEmployee_thenReturn409() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(3L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("ramon.rivera@gmail.com")
+                .build();
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.updatedEmployee(ArgumentMatchers.any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employeeId));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
 
+        //then - verify the output
+        response.andExpect(status().isConflict())
+                .andDo(print());
     }
 
     //negative scenario - invalid employee id
@@ -191,19 +769,165 @@ public class EmployeeControllerTests {
                 .andDo(print());
     }
 
+    //JUnit test for EmployeeController patchEmployee method
+    @DisplayName("JUnit test for EmployeeController patchEmployee method")
+    @Test
+    public void givenEmployeeFields_whenPatchEmployee_thenReturn204() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.patchEmployee(eq(employeeId), ArgumentMatchers.any(Employee.class))).willReturn(true);
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"ramon.rivera@gmail.com\"}"));
+
+        //then - verify the output
+        response.andExpect(status().isNoContent())
+                .andDo(print());
+    }
+
+    //negative scenario - invalid employee id
+    //JUnit test for EmployeeController patchEmployee method
+    @DisplayName("JUnit test for EmployeeController patchEmployee method - invalid employee id")
+    @Test
+    public void givenInvalidEmployeeId_whenPatchEmployee_thenReturn404() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.patchEmployee(eq(employeeId), ArgumentMatchers.any(Employee.class))).willReturn(false);
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"ramon.rivera@gmail.com\"}"));
+
+        //then - verify the output
+        response.andExpect(status().isNotFound())
+                .andDo(print());
+    }
+
     //JUnit test for EmployeeController deleteEmployee by method
     @DisplayName("JUnit test for EmployeeController deleteEmployee by method")
     @Test
-    public void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn204() throws Exception {
         //given - precondition or setup
         long employeeId = 1L;
-        willDoNothing().given(employeeService).deleteEmployee(employeeId);
+        given(employeeService.deleteEmployee(employeeId)).willReturn(true);
 
         //when - action or the behaviour we are going to test
         ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
 
         //then - verify the output
-        response.andExpect(status().isOk())
+        response.andExpect(status().isNoContent())
+                .andDo(print());
+    }
+
+    //negative scenario - invalid employee id
+    //JUnit test for EmployeeController deleteEmployee by method
+    @DisplayName("JUnit test for EmployeeController deleteEmployee by method - invalid employee id")
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.deleteEmployee(employeeId)).willReturn(false);
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
+
+        //then - verify the output
+        response.andExpect(status().isNotFound())
+                .andDo(print());
+    }
+
+    //JUnit test for EmployeeController deleteEmployees method
+    @DisplayName("JUnit test for EmployeeController deleteEmployees method")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturn204() throws Exception {
+        //given - precondition or setup
+        given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(2);
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees").param("ids", "1,2,3"));
+
+        //then - verify the output
+        response.andExpect(status().isNoContent())
+                .andDo(print());
+    }
+
+    //JUnit test for EmployeeImportController importEmployees method
+    @DisplayName("JUnit test for EmployeeImportController importEmployees method")
+    @Test
+    public void givenCsvFile_whenImportEmployees_thenReturn202WithJob() throws Exception {
+        //given - precondition or setup
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "firstName,lastName,email\nRamesh,Fadatare,ramesh@gmail.com\n".getBytes());
+        given(employeeCsvImporter.submit(any())).willReturn(Optional.of(
+                new EmployeeImportStatus("job-1", EmployeeImportStatus.State.QUEUED, "employees.csv", 0, 0, 0, null, null, null)));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(multipart("/api/employees/import").file(file));
+
+        //then - verify the output
+        response.andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, containsString("/api/employees/import/job-1")))
+                .andExpect(jsonPath("$.jobId", is("job-1")))
+                .andExpect(jsonPath("$.state", is("QUEUED")))
+                .andDo(print());
+    }
+
+    //negative scenario - the header misses a column
+    //JUnit test for EmployeeImportController importEmployees method
+    @DisplayName("JUnit test for EmployeeImportController importEmployees method (bad header)")
+    @Test
+    public void givenCsvFileWithoutEmailColumn_whenImportEmployees_thenReturn400() throws Exception {
+        //given - precondition or setup
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "firstName,lastName\nRamesh,Fadatare\n".getBytes());
+        given(employeeCsvImporter.submit(any())).willReturn(Optional.of(
+                new EmployeeImportStatus("job-1", EmployeeImportStatus.State.FAILED, "employees.csv", 0, 0, 0, null, null,
+                        "The header must have firstName, lastName and email columns")));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(multipart("/api/employees/import").file(file));
+
+        //then - verify the output
+        response.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.state", is("FAILED")))
+                .andDo(print());
+    }
+
+    //negative scenario - too many imports waiting
+    //JUnit test for EmployeeImportController importEmployees method
+    @DisplayName("JUnit test for EmployeeImportController importEmployees method (queue full)")
+    @Test
+    public void givenImportQueueFull_whenImportEmployees_thenReturn429() throws Exception {
+        //given - precondition or setup
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "firstName,lastName,email\n".getBytes());
+        given(employeeCsvImporter.submit(any())).willReturn(Optional.empty());
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(multipart("/api/employees/import").file(file));
+
+        //then - verify the output
+        response.andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andDo(print());
+    }
+
+    //negative scenario - unknown job
+    //JUnit test for EmployeeImportController getStatus method
+    @DisplayName("JUnit test for EmployeeImportController getStatus method (unknown job)")
+    @Test
+    public void givenUnknownJobId_whenGetImportStatus_thenReturn404() throws Exception {
+        //given - precondition or setup
+        given(employeeCsvImporter.getStatus("job-1")).willReturn(Optional.empty());
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/import/{jobId}", "job-1"));
+
+        //then - verify the output
+        response.andExpect(status().isNotFound())
                 .andDo(print());
     }
 
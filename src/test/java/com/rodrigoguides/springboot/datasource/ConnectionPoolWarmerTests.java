@@ -0,0 +1,62 @@
+package com.rodrigoguides.springboot.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionPoolWarmerTests {
+
+    private final HikariDataSource dataSource = new HikariDataSource();
+
+    private final HikariDataSource replica = new HikariDataSource();
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+        replica.close();
+    }
+
+    //JUnit test for opening the pool before the application is ready
+    @DisplayName("JUnit test for opening the pool before the application is ready")
+    @Test
+    public void givenMinimumIdle_whenRun_thenOpenMinimumIdleConnections() throws Exception {
+        //given - precondition or setup
+        dataSource.setJdbcUrl("jdbc:h2:mem:warm");
+        dataSource.setMinimumIdle(4);
+        dataSource.setMaximumPoolSize(4);
+        ConnectionPoolWarmer connectionPoolWarmer = new ConnectionPoolWarmer(List.of(dataSource));
+
+        //when - action or the behaviour we are going to test
+        connectionPoolWarmer.run(null);
+
+        //then - verify the output
+        assertThat(dataSource.getHikariPoolMXBean().getTotalConnections()).isEqualTo(4);
+        assertThat(dataSource.getHikariPoolMXBean().getIdleConnections()).isEqualTo(4);
+    }
+
+    //JUnit test for opening the replica pools too
+    @DisplayName("JUnit test for opening the replica pools too")
+    @Test
+    public void givenReplicaPool_whenRun_thenOpenReplicaPoolToo() throws Exception {
+        //given - precondition or setup
+        dataSource.setJdbcUrl("jdbc:h2:mem:warm-primary");
+        dataSource.setMinimumIdle(2);
+        dataSource.setMaximumPoolSize(2);
+        replica.setJdbcUrl("jdbc:h2:mem:warm-replica");
+        replica.setMaximumPoolSize(3);
+        ConnectionPoolWarmer connectionPoolWarmer = new ConnectionPoolWarmer(List.of(dataSource, replica));
+
+        //when - action or the behaviour we are going to test
+        connectionPoolWarmer.run(null);
+
+        //then - verify the output
+        assertThat(dataSource.getHikariPoolMXBean().getTotalConnections()).isEqualTo(2);
+        //minimum-idle defaults to the maximum pool size
+        assertThat(replica.getHikariPoolMXBean().getTotalConnections()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,169 @@
+package com.rodrigoguides.springboot.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//three H2 databases standing in for the primary and two replicas, each knows its own name
+public class ReplicaRoutingDataSourceTests {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+        new JdbcTemplate(database).execute("create table node (name varchar(20))");
+        new JdbcTemplate(database).update("insert into node values (?)", name);
+        databases.add(database);
+        return database;
+    }
+
+    private void setup(Duration readYourWritesWindow) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(database("primary"),
+                List.of(database("replica1"), database("replica2")), readYourWritesWindow);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private String readOnlyNode() {
+        return readOnlyTransaction.execute(status -> node());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    //JUnit test for routing read-only transactions to the replicas
+    @DisplayName("JUnit test for routing read-only transactions to the replicas")
+    @Test
+    public void givenReplicas_whenReadOnlyTransactions_thenRoundRobinOverReplicas() {
+        //given - precondition or setup
+        setup(Duration.ZERO);
+
+        //when - action or the behaviour we are going to test
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(readOnlyNode());
+        }
+
+        //then - verify the output
+        assertThat(nodes).containsExactly("replica1", "replica2", "replica1", "replica2");
+    }
+
+    //JUnit test for routing writes and non transactional calls to the primary
+    @DisplayName("JUnit test for routing writes and non transactional calls to the primary")
+    @Test
+    public void givenReplicas_whenReadWriteTransaction_thenUsePrimary() {
+        //given - precondition or setup
+        setup(Duration.ZERO);
+
+        //when - action or the behaviour we are going to test
+        String node = readWriteTransaction.execute(status -> node());
+
+        //then - verify the output
+        assertThat(node).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+        assertThat(readOnlyNode()).isEqualTo("replica1");
+    }
+
+    //JUnit test for reading your own writes from the primary
+    @DisplayName("JUnit test for reading your own writes from the primary")
+    @Test
+    public void givenReadYourWritesWindow_whenReadAfterWrite_thenUsePrimaryUntilWindowPassed() throws InterruptedException {
+        //given - precondition or setup
+        setup(Duration.ofMillis(300));
+        assertThat(readOnlyNode()).isEqualTo("replica1");
+
+        //when - action or the behaviour we are going to test
+        readWriteTransaction.execute(status -> jdbcTemplate.update("update node set name = name"));
+
+        //then - verify the output
+        assertThat(readOnlyNode()).isEqualTo("primary");
+        Thread.sleep(400);
+        assertThat(readOnlyNode()).isEqualTo("replica2");
+    }
+
+    //JUnit test for keeping only the writing client's reads on the primary
+    @DisplayName("JUnit test for keeping only the writing client's reads on the primary")
+    @Test
+    public void givenReadYourWritesWindow_whenOtherClientReadsAfterWrite_thenUseReplica() throws Exception {
+        //given - precondition or setup
+        setup(Duration.ofMinutes(1));
+        ReplicaRoutingDataSource.setCurrentClient("client:writer");
+        try {
+            readWriteTransaction.execute(status -> jdbcTemplate.update("update node set name = name"));
+        } finally {
+            ReplicaRoutingDataSource.setCurrentClient(null);
+        }
+
+        //when - action or the behaviour we are going to test
+        String otherClient = readOnlyNode();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        String sameClientOtherThread;
+        try {
+            sameClientOtherThread = executor.submit(() -> {
+                ReplicaRoutingDataSource.setCurrentClient("client:writer");
+                try {
+                    return readOnlyNode();
+                } finally {
+                    ReplicaRoutingDataSource.setCurrentClient(null);
+                }
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        //then - verify the output
+        assertThat(otherClient).isEqualTo("replica1");
+        assertThat(sameClientOtherThread).isEqualTo("primary");
+    }
+
+    //JUnit test for pinning reads to the primary
+    @DisplayName("JUnit test for pinning reads to the primary")
+    @Test
+    public void givenReplicas_whenReadOnlyTransactionOnPrimary_thenUsePrimary() {
+        //given - precondition or setup
+        setup(Duration.ZERO);
+
+        //when - action or the behaviour we are going to test
+        String node = readOnlyTransaction.execute(status -> ReplicaRoutingDataSource.onPrimary(this::node));
+
+        //then - verify the output
+        assertThat(node).isEqualTo("primary");
+        assertThat(readOnlyNode()).isEqualTo("replica1");
+    }
+}
@@ -0,0 +1,144 @@
+package com.rodrigoguides.springboot.ingest;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeImportStatus;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeCsvImporterTests {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeCsvImporter employeeCsvImporter;
+
+    @AfterEach
+    public void tearDown() {
+        if (employeeCsvImporter != null) {
+            employeeCsvImporter.shutdown();
+        }
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private EmployeeImportStatus awaitFinished(String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            EmployeeImportStatus status = employeeCsvImporter.getStatus(jobId).orElseThrow();
+            if (status.getState() == EmployeeImportStatus.State.COMPLETED || status.getState() == EmployeeImportStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import " + jobId + " did not finish");
+    }
+
+    //JUnit test for importing a file of several chunks with rejected rows
+    @DisplayName("JUnit test for importing a file of several chunks with rejected rows")
+    @Test
+    public void givenCsvFileWithInvalidRows_whenSubmit_thenSaveValidRowsInFileOrderAndReportTheRest() throws Exception {
+        //given - precondition or setup
+        employeeCsvImporter = new EmployeeCsvImporter(employeeService, 4, 2, 1);
+        List<String> savedEmails = new CopyOnWriteArrayList<>();
+        willAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            List<EmployeeBatchResult> results = new ArrayList<>();
+            for (int index = 0; index < employees.size(); index++) {
+                Employee employee = employees.get(index);
+                //like the unique index: taken before the import or saved by an earlier chunk
+                if (employee.getEmail().equals("taken@gmail.com") || savedEmails.contains(employee.getEmail())) {
+                    results.add(new EmployeeBatchResult(index, EmployeeBatchResult.Status.DUPLICATE, employee,
+                            "Employee already exists with given email: " + employee.getEmail()));
+                } else {
+                    savedEmails.add(employee.getEmail());
+                    results.add(new EmployeeBatchResult(index, EmployeeBatchResult.Status.CREATED, employee, null));
+                }
+            }
+            return results;
+        }).given(employeeService).saveEmployees(anyList());
+
+        StringBuilder content = new StringBuilder("email,first_name,Last Name\n");
+        int rows = EmployeeCsvImporter.CHUNK_SIZE * 3 + 10;
+        for (int row = 0; row < rows; row++) {
+            content.append("first").append(row).append("@gmail.com,First").append(row).append(",Last").append(row).append('\n');
+        }
+        //lines 3012 to 3017
+        content.append("no-at-sign,Ramesh,Fadatare\n");
+        content.append("taken@gmail.com,Ramesh,Fadatare\n");
+        content.append("first0@gmail.com,\"Fadatare, Jr\",Ramesh\n");
+        content.append("ramesh@gmail.com,,Fadatare\n");
+        content.append("quoted@gmail.com,\"Ramesh \"\"R\"\"\",Fadatare\n");
+        content.append("Quoted@Gmail.com,Ramesh,Fadatare\n");
+
+        //when - action or the behaviour we are going to test
+        EmployeeImportStatus submitted = employeeCsvImporter.submit(csv(content.toString())).orElseThrow();
+        EmployeeImportStatus status = awaitFinished(submitted.getJobId());
+
+        //then - verify the output
+        assertThat(status.getState()).isEqualTo(EmployeeImportStatus.State.COMPLETED);
+        assertThat(status.getRowsRead()).isEqualTo(rows + 6);
+        assertThat(status.getImported()).isEqualTo(rows + 1);
+        assertThat(status.getRejected()).isEqualTo(5);
+        assertThat(savedEmails.get(0)).isEqualTo("first0@gmail.com");
+        assertThat(savedEmails.get(rows - 1)).isEqualTo("first" + (rows - 1) + "@gmail.com");
+        assertThat(Files.readAllLines(employeeCsvImporter.getErrorReport(submitted.getJobId()).orElseThrow())).containsExactly(
+                "line,email,error",
+                "3012,no-at-sign,Invalid email",
+                "3013,taken@gmail.com,Employee already exists with given email: taken@gmail.com",
+                "3014,first0@gmail.com,Duplicate email in the file",
+                "3015,ramesh@gmail.com,\"firstName, lastName and email are required\"",
+                "3017,Quoted@Gmail.com,Duplicate email in the file");
+    }
+
+    //negative scenario - the header misses a column
+    //JUnit test for submitting a file without an email column
+    @DisplayName("JUnit test for submitting a file without an email column")
+    @Test
+    public void givenCsvFileWithoutEmailColumn_whenSubmit_thenFailTheJob() throws Exception {
+        //given - precondition or setup
+        employeeCsvImporter = new EmployeeCsvImporter(employeeService, 1, 2, 1);
+
+        //when - action or the behaviour we are going to test
+        EmployeeImportStatus status = employeeCsvImporter.submit(csv("firstName,lastName\nRamesh,Fadatare\n")).orElseThrow();
+
+        //then - verify the output
+        assertThat(status.getState()).isEqualTo(EmployeeImportStatus.State.FAILED);
+        assertThat(status.getMessage()).contains("email");
+        verifyNoInteractions(employeeService);
+    }
+
+    //JUnit test for parsing quoted CSV fields
+    @DisplayName("JUnit test for parsing quoted CSV fields")
+    @Test
+    public void givenQuotedFields_whenParseLine_thenUnquoteThem() {
+        //given - precondition or setup
+        String line = "\"Fadatare, Jr\",\"say \"\"hi\"\"\",,ramesh@gmail.com";
+
+        //when - action or the behaviour we are going to test
+        List<String> fields = EmployeeCsvImporter.parseLine(line);
+
+        //then - verify the output
+        assertThat(fields).containsExactly("Fadatare, Jr", "say \"hi\"", "", "ramesh@gmail.com");
+        assertThat(EmployeeCsvImporter.parseLine("\"unclosed,ramesh@gmail.com")).isNull();
+    }
+}
@@ -0,0 +1,154 @@
+package com.rodrigoguides.springboot.ingest;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeIngestStatus;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBufferTests {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeWriteBuffer employeeWriteBuffer;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        employeeWriteBuffer.shutdown();
+    }
+
+    private static Employee employee(int index) {
+        return Employee.builder()
+                .firstName("First" + index)
+                .lastName("Last" + index)
+                .email("first" + index + "@gmail.com")
+                .build();
+    }
+
+    //saves every employee with a generated id, the way saveEmployees does
+    private static List<EmployeeBatchResult> created(List<Employee> employees) {
+        List<EmployeeBatchResult> results = new ArrayList<>();
+        for (int index = 0; index < employees.size(); index++) {
+            Employee employee = employees.get(index);
+            employee.setId(index + 1L);
+            results.add(new EmployeeBatchResult(index, EmployeeBatchResult.Status.CREATED, employee, null));
+        }
+        return results;
+    }
+
+    //JUnit test for flushing queued employees in a single batch
+    @DisplayName("JUnit test for flushing queued employees in a single batch")
+    @Test
+    public void givenQueuedEmployees_whenFlushIntervalPassed_thenSaveThemInOneBatch() {
+        //given - precondition or setup
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+        employeeWriteBuffer = new EmployeeWriteBuffer(employeeService, 100, 50, Duration.ofMillis(200));
+        List<String> trackingIds = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            trackingIds.add(employeeWriteBuffer.submit(employee(index)).get().getTrackingId());
+        }
+
+        //when - action or the behaviour we are going to test
+        employeeWriteBuffer.start();
+
+        //then - verify the output
+        verify(employeeService, timeout(5000).times(1)).saveEmployees(anyList());
+        Optional<EmployeeIngestStatus> status = employeeWriteBuffer.getStatus(trackingIds.get(2));
+        assertThat(status).isPresent();
+        assertThat(status.get().getState()).isEqualTo(EmployeeIngestStatus.State.CREATED);
+        assertThat(status.get().getEmployee().getId()).isEqualTo(3L);
+    }
+
+    //JUnit test for the status of a queued employee
+    @DisplayName("JUnit test for the status of a queued employee")
+    @Test
+    public void givenQueuedStatus_whenWriterSavesEmployee_thenStatusIsNotChanged() {
+        //given - precondition or setup
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+        employeeWriteBuffer = new EmployeeWriteBuffer(employeeService, 100, 50, Duration.ofMillis(10));
+        Employee employee = employee(0);
+        EmployeeIngestStatus queued = employeeWriteBuffer.submit(employee).get();
+
+        //when - action or the behaviour we are going to test
+        employeeWriteBuffer.start();
+
+        //then - verify the output
+        verify(employeeService, timeout(5000).times(1)).saveEmployees(anyList());
+        //the writer set the id on the queued instance, the status handed out still has its own copy
+        assertThat(employee.getId()).isEqualTo(1L);
+        assertThat(queued.getState()).isEqualTo(EmployeeIngestStatus.State.QUEUED);
+        assertThat(queued.getEmployee()).isNotSameAs(employee);
+        assertThat(queued.getEmployee().getId()).isZero();
+        assertThat(queued.getEmployee().getEmail()).isEqualTo("first0@gmail.com");
+    }
+
+    //JUnit test for rejecting employees while the queue is full
+    @DisplayName("JUnit test for rejecting employees while the queue is full")
+    @Test
+    public void givenFullQueue_whenSubmit_thenReject() throws InterruptedException {
+        //given - precondition or setup
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> {
+            writerBlocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return created(invocation.getArgument(0));
+        });
+        employeeWriteBuffer = new EmployeeWriteBuffer(employeeService, 2, 1, Duration.ofMillis(10));
+        employeeWriteBuffer.start();
+        employeeWriteBuffer.submit(employee(0));
+        assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        employeeWriteBuffer.submit(employee(1));
+        employeeWriteBuffer.submit(employee(2));
+
+        //when - action or the behaviour we are going to test
+        Optional<EmployeeIngestStatus> status = employeeWriteBuffer.submit(employee(3));
+
+        //then - verify the output
+        assertThat(status).isEmpty();
+        assertThat(employeeWriteBuffer.getQueueSize()).isEqualTo(2);
+        release.countDown();
+    }
+
+    //JUnit test for draining the queue on shutdown
+    @DisplayName("JUnit test for draining the queue on shutdown")
+    @Test
+    public void givenQueuedEmployees_whenShutdown_thenSaveThemAll() throws InterruptedException {
+        //given - precondition or setup
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+        employeeWriteBuffer = new EmployeeWriteBuffer(employeeService, 100, 2, Duration.ofSeconds(10));
+        for (int index = 0; index < 5; index++) {
+            employeeWriteBuffer.submit(employee(index));
+        }
+        employeeWriteBuffer.start();
+
+        //when - action or the behaviour we are going to test
+        employeeWriteBuffer.shutdown();
+
+        //then - verify the output
+        verify(employeeService, times(3)).saveEmployees(anyList());
+        assertThat(employeeWriteBuffer.getQueueSize()).isZero();
+        assertThat(employeeWriteBuffer.submit(employee(5))).isEmpty();
+    }
+}
@@ -10,18 +10,28 @@ import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.change-feed.settle-time=0s")
 @AutoConfigureMockMvc
 public class EmpoyeeControllerITests {
 
@@ -64,4 +74,172 @@ public class EmpoyeeControllerITests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    //Integration test for EmployeeController createEmployee method with existing email
+    @DisplayName("Integration test for EmployeeController createEmployee method with existing email")
+    @Test
+    public void givenExistingEmail_whenCreateEmployee_thenReturn409() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        employeeRepository.save(Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email(employee.getEmail())
+                .build());
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    //Integration test for EmployeeController createEmployees method
+    @DisplayName("Integration test for EmployeeController createEmployees method")
+    @Test
+    public void givenListOfEmployees_whenCreateEmployees_thenReturnResultPerEmployee() throws Exception {
+        //given - precondition or setup
+        employeeRepository.save(Employee.builder()
+                .firstName("Rodrigo")
+                .lastName("Orellana")
+                .email("rodrigo.orelana@gmail.com")
+                .build());
+        List<Employee> listOfEmployees = List.of(
+                Employee.builder().firstName("Domingo").lastName("Rivera").email("domingo.rivera@gmail.com").build(),
+                Employee.builder().firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build(),
+                Employee.builder().firstName("John").lastName("Cena").email("john.cena@gmail.com").build());
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(listOfEmployees)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$[2].status", is("CREATED")));
+    }
+
+    //Integration test for EmployeeController conditional get and update methods
+    @DisplayName("Integration test for EmployeeController conditional get and update methods")
+    @Test
+    public void givenVersionETag_whenConditionalGetAndUpdate_thenHonourPreconditions() throws Exception {
+        //given - precondition or setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build());
+        String eTag = "\"" + savedEmployee.getVersion() + "\"";
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("ramon.rivera@gmail.com")
+                .build();
+
+        //when - action or the behaviour we are going to test
+        ResultActions notModified = mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+        ResultActions updated = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+        ResultActions conflict = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        notModified.andExpect(status().isNotModified());
+        updated.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (savedEmployee.getVersion() + 1) + "\""))
+                .andExpect(jsonPath("$.firstName", is(updatedEmployee.getFirstName())));
+        conflict.andExpect(status().isPreconditionFailed());
+    }
+
+    //Integration test for EmployeeController getEmployeeChanges method
+    @DisplayName("Integration test for EmployeeController getEmployeeChanges method")
+    @Test
+    public void givenCreatedAndDeletedEmployees_whenGetEmployeeChanges_thenReturnOnlyChangesSinceToken() throws Exception{
+        //given - precondition or setup
+        String since = objectMapper.readTree(mockMvc.perform(get("/api/employees/changes"))
+                .andReturn().getResponse().getContentAsString()).get("nextToken").asText();
+        Employee kept = objectMapper.readValue(mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Employee.builder().firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build())))
+                .andReturn().getResponse().getContentAsString(), Employee.class);
+        Employee removed = objectMapper.readValue(mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Employee.builder().firstName("Domingo").lastName("Rivera").email("domingo.rivera@gmail.com").build())))
+                .andReturn().getResponse().getContentAsString(), Employee.class);
+        mockMvc.perform(delete("/api/employees/{id}", removed.getId()));
+
+        //when - action or the behaviour we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes").param("since", since));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.size()", is(2)))
+                .andExpect(jsonPath("$.changes[0].type", is("CREATED")))
+                .andExpect(jsonPath("$.changes[0].employee.email", is(kept.getEmail())))
+                .andExpect(jsonPath("$.changes[1].type", is("DELETED")))
+                .andExpect(jsonPath("$.changes[1].employeeId", is((int) removed.getId())))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+    //Integration test for EmployeeImportController importEmployees method
+    @DisplayName("Integration test for EmployeeImportController importEmployees method")
+    @Test
+    public void givenCsvFile_whenImportEmployees_thenSaveValidRowsAndReportTheRest() throws Exception{
+        //given - precondition or setup
+        employeeRepository.save(Employee.builder().firstName("Rodrigo").lastName("Orellana").email("rodrigo.orelana@gmail.com").build());
+        String since = objectMapper.readTree(mockMvc.perform(get("/api/employees/changes"))
+                .andReturn().getResponse().getContentAsString()).get("nextToken").asText();
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", ("firstName,lastName,email\n"
+                + "Domingo,Rivera,domingo.rivera@gmail.com\n"
+                + "Rodrigo,Orellana,rodrigo.orelana@gmail.com\n"
+                + "Ramesh,Fadatare,not-an-email\n"
+                + "\"Tony, Jr\",Stark,tony@gmail.com\n").getBytes());
+
+        //when - action or the behaviour we are going to test
+        String jobId = objectMapper.readTree(mockMvc.perform(multipart("/api/employees/import").file(file))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString()).get("jobId").asText();
+        String state;
+        int attempts = 0;
+        do {
+            Thread.sleep(50);
+            state = objectMapper.readTree(mockMvc.perform(get("/api/employees/import/{jobId}", jobId))
+                    .andReturn().getResponse().getContentAsString()).get("state").asText();
+        } while (!state.equals("COMPLETED") && !state.equals("FAILED") && ++attempts < 200);
+        ResultActions response = mockMvc.perform(get("/api/employees/import/{jobId}", jobId));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsRead", is(4)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(2)));
+        mockMvc.perform(get("/api/employees/import/{jobId}/errors", jobId))
+                .andExpect(status().isOk())
+                .andExpect(content().string("line,email,error\n"
+                        + "3,rodrigo.orelana@gmail.com,Employee already exists with given email: rodrigo.orelana@gmail.com\n"
+                        + "4,not-an-email,Invalid email\n"));
+        mockMvc.perform(get("/api/employees/changes").param("since", since))
+                .andExpect(jsonPath("$.changes.size()", is(2)))
+                .andExpect(jsonPath("$.changes[1].employee.firstName", is("Tony, Jr")));
+    }
+
 }
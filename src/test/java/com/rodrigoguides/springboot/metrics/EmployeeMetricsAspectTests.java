@@ -0,0 +1,137 @@
+package com.rodrigoguides.springboot.metrics;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.repository.EmployeeChangeRepository;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.search.EmployeeSearchIndex;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import com.rodrigoguides.springboot.service.impl.EmployeeServiceImpl;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeMetricsAspectTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EmployeeSearchIndex searchIndex;
+
+    @Mock
+    private EmployeeChangeRepository changeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmployeeService employeeService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        EmployeeMetricsAspect aspect = new EmployeeMetricsAspect(meterRegistry);
+
+        AspectJProxyFactory repositoryProxyFactory = new AspectJProxyFactory(employeeRepository);
+        repositoryProxyFactory.addAspect(aspect);
+        EmployeeRepository timedRepository = repositoryProxyFactory.getProxy();
+
+        AspectJProxyFactory changeRepositoryProxyFactory = new AspectJProxyFactory(changeRepository);
+        changeRepositoryProxyFactory.addAspect(aspect);
+        EmployeeChangeRepository timedChangeRepository = changeRepositoryProxyFactory.getProxy();
+
+        AspectJProxyFactory serviceProxyFactory = new AspectJProxyFactory(new EmployeeServiceImpl(timedRepository, entityManager, eventPublisher, searchIndex, timedChangeRepository, transactionManager));
+        serviceProxyFactory.addAspect(aspect);
+        employeeService = serviceProxyFactory.getProxy();
+    }
+
+    //JUnit test for timing a service call and its repository calls
+    @DisplayName("JUnit test for timing a service call and its repository calls")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenRecordServiceAndRepositoryTimers() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(Employee.builder().id(1L).build()));
+
+        //when - action or the behaviour we are going to test
+        employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        Timer serviceTimer = meterRegistry.get(EmployeeMetricsAspect.SERVICE_TIMER)
+                .tags("operation", "getEmployeeById", "outcome", "success").timer();
+        Timer repositoryTimer = meterRegistry.get(EmployeeMetricsAspect.REPOSITORY_TIMER)
+                .tags("operation", "findById", "outcome", "success").timer();
+        DistributionSummary repositoryCalls = meterRegistry.get(EmployeeMetricsAspect.REPOSITORY_CALLS)
+                .tags("operation", "getEmployeeById").summary();
+        assertThat(serviceTimer.count()).isEqualTo(1);
+        assertThat(repositoryTimer.count()).isEqualTo(1);
+        assertThat(repositoryCalls.totalAmount()).isEqualTo(1);
+    }
+
+    //JUnit test for timing a failed service call
+    @DisplayName("JUnit test for timing a failed service call")
+    @Test
+    public void givenRepositoryFailure_whenGetEmployeeById_thenRecordErrorOutcome() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willThrow(new DataAccessResourceFailureException("connection refused"));
+
+        //when - action or the behaviour we are going to test
+        assertThrows(DataAccessResourceFailureException.class, () -> employeeService.getEmployeeById(1L));
+
+        //then - verify the output
+        Timer serviceTimer = meterRegistry.get(EmployeeMetricsAspect.SERVICE_TIMER)
+                .tags("operation", "getEmployeeById", "outcome", "error", "exception", "DataAccessResourceFailureException").timer();
+        assertThat(serviceTimer.count()).isEqualTo(1);
+    }
+
+    //JUnit test for counting change feed writes as repository calls
+    @DisplayName("JUnit test for counting change feed writes as repository calls")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenCountChangeRepositoryCalls() {
+        //given - precondition or setup
+        given(employeeRepository.findExistingIdsForUpdate(any())).willReturn(List.of(1L, 2L));
+        given(employeeRepository.deleteEmployeesByIdIn(List.of(1L, 2L))).willReturn(2);
+
+        //when - action or the behaviour we are going to test
+        employeeService.deleteEmployees(List.of(1L, 2L));
+        employeeService.deleteEmployees(List.of(1L, 2L));
+
+        //then - verify the output
+        Timer insertAllTimer = meterRegistry.get(EmployeeMetricsAspect.REPOSITORY_TIMER)
+                .tags("operation", "insertAll", "outcome", "success").timer();
+        DistributionSummary repositoryCalls = meterRegistry.get(EmployeeMetricsAspect.REPOSITORY_CALLS)
+                .tags("operation", "deleteEmployees").summary();
+        assertThat(insertAllTimer.count()).isEqualTo(2);
+        //findExistingIdsForUpdate, deleteEmployeesByIdIn and insertAll, twice, on the same registered meters
+        assertThat(repositoryCalls.count()).isEqualTo(2);
+        assertThat(repositoryCalls.totalAmount()).isEqualTo(6);
+        assertThat(meterRegistry.find(EmployeeMetricsAspect.REPOSITORY_TIMER).timers()).hasSize(3);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final long QUEUEING = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final String BY_ID = "GET /api/employees/{id}";
+
+    private static final String EXPORT = "GET /api/employees/export";
+
+    //runs rounds of limit concurrent requests that all take the given latency
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long latencyNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(BY_ID, latencyNanos);
+            }
+        }
+    }
+
+    //JUnit test for rejecting requests over the limit
+    @DisplayName("JUnit test for rejecting requests over the limit")
+    @Test
+    public void givenLimitReached_whenTryAcquire_thenRejectUntilReleased() {
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        //when - action or the behaviour we are going to test
+        boolean acquired = limiter.tryAcquire();
+
+        //then - verify the output
+        assertThat(acquired).isFalse();
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    //JUnit test for growing the limit while latency stays flat
+    @DisplayName("JUnit test for growing the limit while latency stays flat")
+    @Test
+    public void givenSaturatedButFastBackend_whenRequestsComplete_thenIncreaseLimit() {
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 40, 2.0);
+
+        //when - action or the behaviour we are going to test
+        saturate(limiter, FAST, 50);
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(40);
+    }
+
+    //JUnit test for backing off when latency rises
+    @DisplayName("JUnit test for backing off when latency rises")
+    @Test
+    public void givenLatencyRisesWithConcurrency_whenRequestsComplete_thenDecreaseLimitDownToMinimum() {
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 40, 2.0);
+        saturate(limiter, FAST, 5);
+        int limitBefore = limiter.getLimit();
+
+        //when - action or the behaviour we are going to test
+        saturate(limiter, QUEUEING, 10);
+        int limitDuringOverload = limiter.getLimit();
+        saturate(limiter, QUEUEING, 20);
+
+        //then - verify the output
+        assertThat(limitDuringOverload).isLessThan(limitBefore);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    //JUnit test for keeping the latency baseline per route
+    @DisplayName("JUnit test for keeping the latency baseline per route")
+    @Test
+    public void givenFastAndSteadilySlowRoutes_whenRequestsComplete_thenDoNotDecreaseLimit() {
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 40, 2.0);
+
+        //when - action or the behaviour we are going to test
+        for (int round = 0; round < 50; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            //half of every round is a route that is always ten times slower, without any queueing
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(i % 2 == 0 ? BY_ID : EXPORT, i % 2 == 0 ? FAST : FAST * 10);
+            }
+        }
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
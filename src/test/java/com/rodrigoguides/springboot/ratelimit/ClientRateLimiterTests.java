@@ -0,0 +1,74 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientRateLimiterTests {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    //JUnit test for allowing a burst and then the sustained rate
+    @DisplayName("JUnit test for allowing a burst and then the sustained rate")
+    @Test
+    public void givenClientUsedItsBurst_whenTryAcquire_thenRejectUntilTokensRefill() {
+        //given - precondition or setup
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(10, 3, 100, clock::get);
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("batch-client")).isEqualTo(ClientRateLimiter.ALLOWED);
+        }
+
+        //when - action or the behaviour we are going to test
+        long wait = rateLimiter.tryAcquire("batch-client");
+
+        //then - verify the output
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire("dashboard")).isEqualTo(ClientRateLimiter.ALLOWED);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire("batch-client")).isEqualTo(ClientRateLimiter.ALLOWED);
+        assertThat(rateLimiter.tryAcquire("batch-client")).isGreaterThan(ClientRateLimiter.ALLOWED);
+    }
+
+    //JUnit test for concurrent requests of one client
+    @DisplayName("JUnit test for concurrent requests of one client")
+    @Test
+    public void givenConcurrentRequests_whenTryAcquire_thenAllowExactlyTheBurst() throws InterruptedException {
+        //given - precondition or setup
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(1, 1_000, 100, clock::get);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (rateLimiter.tryAcquire("batch-client") == ClientRateLimiter.ALLOWED) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        //when - action or the behaviour we are going to test
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //then - verify the output
+        assertThat(allowed.get()).isEqualTo(1_000);
+    }
+}
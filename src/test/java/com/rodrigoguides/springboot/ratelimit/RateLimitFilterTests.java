@@ -0,0 +1,147 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final String GATEWAY = "10.0.0.2";
+
+    private static MockHttpServletRequest request(String uri, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr(GATEWAY);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+
+    //JUnit test for rejecting a client over its rate
+    @DisplayName("JUnit test for rejecting a client over its rate")
+    @Test
+    public void givenClientOverItsRate_whenRequest_thenReturn429WithRetryAfter() throws ServletException, IOException {
+        //given - precondition or setup
+        ClientRateLimitFilter filter = new ClientRateLimitFilter(meterRegistry, 0.5, 1, 100, "X-Client-Id", new String[]{GATEWAY});
+        filter.doFilter(request("/api/employees", "batch-client"), new MockHttpServletResponse(), new MockFilterChain());
+
+        //when - action or the behaviour we are going to test
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("/api/employees", "batch-client"), response, chain);
+
+        //then - verify the output
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.counter("employees.api.rate.limited").count()).isEqualTo(1.0);
+
+        MockFilterChain otherClient = new MockFilterChain();
+        filter.doFilter(request("/api/employees", "dashboard"), new MockHttpServletResponse(), otherClient);
+        assertThat(otherClient.getRequest()).isNotNull();
+        MockFilterChain otherPath = new MockFilterChain();
+        filter.doFilter(request("/actuator/health", "batch-client"), new MockHttpServletResponse(), otherPath);
+        assertThat(otherPath.getRequest()).isNotNull();
+    }
+
+    //negative scenario - a client picks a new client id for every request
+    //JUnit test for ignoring the client header from an untrusted address
+    @DisplayName("JUnit test for ignoring the client header from an untrusted address")
+    @Test
+    public void givenClientHeaderFromUntrustedAddress_whenRequest_thenLimitByAddress() throws ServletException, IOException {
+        //given - precondition or setup
+        ClientRateLimitFilter filter = new ClientRateLimitFilter(meterRegistry, 0.5, 1, 100, "X-Client-Id", new String[]{GATEWAY});
+        MockHttpServletRequest first = request("/api/employees", "client-1");
+        first.setRemoteAddr("203.0.113.7");
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain());
+
+        //when - action or the behaviour we are going to test
+        MockHttpServletRequest second = request("/api/employees", "client-2");
+        second.setRemoteAddr("203.0.113.7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(second, response, new MockFilterChain());
+
+        //then - verify the output
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        MockHttpServletRequest user = request("/api/employees", null);
+        user.setRemoteAddr("203.0.113.7");
+        user.setUserPrincipal(() -> "ramesh");
+        MockFilterChain userChain = new MockFilterChain();
+        filter.doFilter(user, new MockHttpServletResponse(), userChain);
+        assertThat(userChain.getRequest()).isNotNull();
+    }
+
+    //JUnit test for shedding requests over the concurrency limit
+    @DisplayName("JUnit test for shedding requests over the concurrency limit")
+    @Test
+    public void givenConcurrencyLimitReached_whenRequest_thenReturn503() throws ServletException, IOException {
+        //given - precondition or setup
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry, 1, 1, 10, 2.0);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        //the second request arrives while the first one is still in the chain
+        MockFilterChain slowChain = new MockFilterChain() {
+            @Override
+            public void doFilter(javax.servlet.ServletRequest request, javax.servlet.ServletResponse response) throws IOException, ServletException {
+                super.doFilter(request, response);
+                filter.doFilter(request("/api/employees", null), shed, new MockFilterChain());
+            }
+        };
+
+        //when - action or the behaviour we are going to test
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(request("/api/employees", null), served, slowChain);
+
+        //then - verify the output
+        assertThat(served.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(shed.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("employees.api.concurrency.in.flight").gauge().value()).isZero();
+        assertThat(meterRegistry.counter("employees.api.concurrency.rejected").count()).isEqualTo(1.0);
+    }
+
+    //JUnit test for holding a permit until an async request completes
+    @DisplayName("JUnit test for holding a permit until an async request completes")
+    @Test
+    public void givenAsyncRequest_whenChainReturns_thenKeepPermitUntilComplete() throws ServletException, IOException {
+        //given - precondition or setup
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry, 1, 1, 10, 2.0);
+        MockHttpServletRequest export = request("/api/employees/export", null);
+        export.setAsyncSupported(true);
+        MockFilterChain asyncChain = new MockFilterChain() {
+            @Override
+            public void doFilter(javax.servlet.ServletRequest request, javax.servlet.ServletResponse response) throws IOException, ServletException {
+                super.doFilter(request, response);
+                request.startAsync();
+            }
+        };
+
+        //when - action or the behaviour we are going to test
+        filter.doFilter(export, new MockHttpServletResponse(), asyncChain);
+
+        //then - verify the output
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(request("/api/employees", null), shed, new MockFilterChain());
+        assertThat(shed.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        MockFilterChain stream = new MockFilterChain();
+        filter.doFilter(request("/api/employees/stream", null), new MockHttpServletResponse(), stream);
+        assertThat(stream.getRequest()).isNotNull();
+
+        export.getAsyncContext().complete();
+        assertThat(meterRegistry.get("employees.api.concurrency.in.flight").gauge().value()).isZero();
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(request("/api/employees", null), served, new MockFilterChain());
+        assertThat(served.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+}
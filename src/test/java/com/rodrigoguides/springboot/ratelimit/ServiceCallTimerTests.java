@@ -0,0 +1,70 @@
+package com.rodrigoguides.springboot.ratelimit;
+
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class ServiceCallTimerTests {
+
+    @Mock
+    private EmployeeService target;
+
+    private EmployeeService employeeService;
+
+    @BeforeEach
+    public void setup() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new ServiceCallTimer());
+        employeeService = proxyFactory.getProxy();
+    }
+
+    //JUnit test for timing the service calls of a request and not the rest of it
+    @DisplayName("JUnit test for timing the service calls of a request and not the rest of it")
+    @Test
+    public void givenSlowResponseWrite_whenStop_thenReturnServiceTimeOnly() throws InterruptedException {
+        //given - precondition or setup
+        given(target.getEmployeeById(1L)).willAnswer(invocation -> {
+            Thread.sleep(50);
+            return Optional.of(Employee.builder().id(1L).build());
+        });
+
+        //when - action or the behaviour we are going to test
+        ServiceCallTimer.start();
+        employeeService.getEmployeeById(1L);
+        employeeService.getEmployeeById(1L);
+        //writing the response to a slow client
+        Thread.sleep(300);
+        long serviceNanos = ServiceCallTimer.stop();
+
+        //then - verify the output
+        assertThat(serviceNanos).isBetween(TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    //JUnit test for a request that made no service call
+    @DisplayName("JUnit test for a request that made no service call")
+    @Test
+    public void givenNoServiceCall_whenStop_thenReturnNoCalls() {
+        //given - precondition or setup
+        ServiceCallTimer.start();
+
+        //when - action or the behaviour we are going to test
+        long serviceNanos = ServiceCallTimer.stop();
+
+        //then - verify the output
+        assertThat(serviceNanos).isEqualTo(ServiceCallTimer.NO_CALLS);
+        assertThat(ServiceCallTimer.stop()).isEqualTo(ServiceCallTimer.NO_CALLS);
+    }
+}
@@ -0,0 +1,64 @@
+package com.rodrigoguides.springboot.repository;
+
+import com.rodrigoguides.springboot.model.EmployeeChange;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class EmployeeChangeRepositoryTests {
+
+    @Autowired
+    private EmployeeChangeRepository changeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    //JUnit test for recording changes in one batch
+    @DisplayName("JUnit test for recording changes in one batch")
+    @Test
+    public void givenChanges_whenInsertAll_thenSetTheirSeqsInOrder() {
+        //given - precondition or setup
+        List<EmployeeChange> changes = List.of(
+                new EmployeeChange(0L, 1L, EmployeeChangeType.CREATED, null),
+                new EmployeeChange(0L, 2L, EmployeeChangeType.CREATED, null),
+                new EmployeeChange(0L, 1L, EmployeeChangeType.DELETED, null));
+
+        //when - action or the behaviour we are going to test
+        changeRepository.insertAll(changes);
+
+        //then - verify the output
+        List<EmployeeChange> rows = changeRepository.findBySeqGreaterThanOrderBySeqAsc(0L, PageRequest.of(0, 10));
+        assertThat(rows).hasSize(3);
+        assertThat(changes).extracting(EmployeeChange::getSeq)
+                .containsExactly(rows.get(0).getSeq(), rows.get(1).getSeq(), rows.get(2).getSeq());
+        assertThat(rows).extracting(EmployeeChange::getEmployeeId).containsExactly(1L, 2L, 1L);
+        assertThat(rows).extracting(EmployeeChange::getChangedAt).doesNotContainNull();
+    }
+
+    //JUnit test for stamping changes with the database clock
+    @DisplayName("JUnit test for stamping changes with the database clock")
+    @Test
+    public void givenChange_whenSave_thenDatabaseSetsChangedAt() {
+        //given - precondition or setup
+        Instant before = changeRepository.currentTimestamp().toInstant();
+
+        //when - action or the behaviour we are going to test
+        EmployeeChange change = changeRepository.saveAndFlush(new EmployeeChange(0L, 1L, EmployeeChangeType.CREATED, Instant.EPOCH));
+        entityManager.clear();
+
+        //then - verify the output
+        Instant changedAt = changeRepository.findById(change.getSeq()).orElseThrow().getChangedAt();
+        assertThat(changedAt).isAfterOrEqualTo(before);
+        assertThat(changedAt).isBeforeOrEqualTo(changeRepository.currentTimestamp().toInstant());
+    }
+}
@@ -10,9 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @DataJpaTest
 public class EmployeeRepositoryTests {
@@ -51,6 +56,29 @@ public class EmployeeRepositoryTests {
         assertThat(savedEmployee.getId()).isGreaterThan(0);
     }
 
+    //JUnit test for insertAll operation
+    @DisplayName("JUnit test for insertAll operation")
+    @Test
+    public void givenEmployeeList_whenInsertAll_thenSetGeneratedIds() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Snow")
+                .email("john.snow@gmail.com")
+                .build();
+        List<Employee> employees = List.of(employee, employee1);
+
+        //when - action or the behaviour we are going to test
+        employeeRepository.insertAll(employees);
+
+        //then - verify the output
+        assertThat(employee.getId()).isGreaterThan(0);
+        assertThat(employee1.getId()).isGreaterThan(employee.getId());
+        assertThat(employeeRepository.findById(employee1.getId())).get()
+                .extracting(Employee::getEmail, Employee::getVersion)
+                .containsExactly("john.snow@gmail.com", 0L);
+    }
+
     //JUnit test for get all employees operation
     @DisplayName("JUnit test for get all employees operation")
     @Test
@@ -82,6 +110,111 @@ public class EmployeeRepositoryTests {
 
     }
 
+    //JUnit test for find existing emails operation
+    @DisplayName("JUnit test for find existing emails operation")
+    @Test
+    public void givenEmployeeObject_whenFindExistingEmails_thenReturnOnlyTakenEmails() {
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour we are going to test
+        Set<String> existingEmails = employeeRepository.findExistingEmails(List.of(employee.getEmail(), "john.cena@gmail.com"));
+
+        //then - verify the output
+        assertThat(existingEmails).containsExactly(employee.getEmail());
+    }
+
+    //JUnit test for find existing ids operation
+    @DisplayName("JUnit test for find existing ids operation")
+    @Test
+    public void givenEmployeeObject_whenFindExistingIdsForUpdate_thenReturnOnlyExistingIds() {
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour we are going to test
+        List<Long> existingIds = employeeRepository.findExistingIdsForUpdate(List.of(employee.getId(), employee.getId() + 1000));
+
+        //then - verify the output
+        assertThat(existingIds).containsExactly(employee.getId());
+    }
+
+    //JUnit test for keyset pagination operation
+    @DisplayName("JUnit test for keyset pagination operation")
+    @Test
+    public void givenEmployeesList_whenFindByIdGreaterThan_thenReturnNextPage() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Cena")
+                .email("john.cena@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+        employeeRepository.save(employee2);
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employeeList = employeeRepository.findByIdGreaterThanOrderByIdAsc(employee.getId(), PageRequest.of(0, 1));
+
+        //then - verify the output
+        assertThat(employeeList).hasSize(1);
+        assertThat(employeeList.get(0).getId()).isEqualTo(employee1.getId());
+    }
+
+    //JUnit test for projection of selected fields operation
+    @DisplayName("JUnit test for projection of selected fields operation")
+    @Test
+    public void givenEmployeesList_whenFindFieldsByIdGreaterThan_thenReturnOnlyRequestedFields() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Cena")
+                .email("john.cena@gmail.com")
+                .build();
+
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+
+        //when - action or the behaviour we are going to test
+        List<Map<String, Object>> rows = employeeRepository.findFieldsByIdGreaterThan(List.of("email", "id"), 0L, 10);
+
+        //then - verify the output
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).containsOnlyKeys("email", "id");
+        assertThat(rows.get(0).keySet()).containsExactly("email", "id");
+        assertThat(rows.get(0)).containsEntry("id", employee.getId()).containsEntry("email", employee.getEmail());
+        assertThat(rows.get(1)).containsEntry("email", employee1.getEmail());
+    }
+
+    //JUnit test for stream all employees operation
+    @DisplayName("JUnit test for stream all employees operation")
+    @Test
+    public void givenEmployeesList_whenStreamAll_thenReturnEmployeesOrderedById() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Cena")
+                .email("john.cena@gmail.com")
+                .build();
+
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employeeList;
+        try (Stream<Employee> employees = employeeRepository.streamAllByOrderByIdAsc()) {
+            employeeList = employees.collect(Collectors.toList());
+        }
+
+        //then - verify the output
+        assertThat(employeeList).extracting(Employee::getId).containsExactly(employee.getId(), employee1.getId());
+    }
+
     //JUnit test for get employee by id operation
     @DisplayName("JUnit test for get employee by id operation")
     @Test
@@ -121,6 +254,20 @@ public class EmployeeRepositoryTests {
         assertThat(employeeDB).isNotNull();
     }
 
+    //JUnit test for get employee version by id operation
+    @DisplayName("JUnit test for get employee version by id operation")
+    @Test
+    public void givenEmployeeObject_whenFindVersionById_thenReturnVersion() {
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour we are going to test
+        Optional<Long> version = employeeRepository.findVersionById(employee.getId());
+
+        //then - verify the output
+        assertThat(version).contains(employee.getVersion());
+    }
+
     //JUnit test for update employee operation
     @DisplayName("JUnit test for update employee operation")
     @Test
@@ -144,6 +291,24 @@ public class EmployeeRepositoryTests {
         assertThat(updatedEmployee.getFirstName()).isEqualTo("Domingo");
     }
 
+    //JUnit test for partial update employee operation
+    @DisplayName("JUnit test for partial update employee operation")
+    @Test
+    public void givenEmployeeObject_whenUpdateEmployeeFields_thenUpdateOnlyGivenFields() {
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour we are going to test
+        int updated = employeeRepository.updateEmployeeFields(employee.getId(), null, null, "rivera.rodrigo@gmail.com");
+        Employee updatedEmployee = employeeRepository.findById(employee.getId()).get();
+
+        //then - verify the output
+        assertThat(updated).isEqualTo(1);
+        assertThat(updatedEmployee.getEmail()).isEqualTo("rivera.rodrigo@gmail.com");
+        assertThat(updatedEmployee.getFirstName()).isEqualTo("Rodrigo");
+        assertThat(updatedEmployee.getVersion()).isEqualTo(1L);
+    }
+
     //JUnit test for delete employee operation
     @DisplayName("JUnit test for delete employee operation")
     @Test
@@ -164,6 +329,44 @@ public class EmployeeRepositoryTests {
         assertThat(employeeOptional).isEmpty();
     }
 
+    //JUnit test for delete employee by id operation
+    @DisplayName("JUnit test for delete employee by id operation")
+    @Test
+    public void givenEmployeeObject_whenDeleteEmployeeById_thenReturnDeletedCount() {
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour we are going to test
+        int deleted = employeeRepository.deleteEmployeeById(employee.getId());
+        int deletedAgain = employeeRepository.deleteEmployeeById(employee.getId());
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isEqualTo(0);
+        assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+    }
+
+    //JUnit test for delete employees by ids operation
+    @DisplayName("JUnit test for delete employees by ids operation")
+    @Test
+    public void givenEmployeesList_whenDeleteEmployeesByIdIn_thenReturnDeletedCount() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Cena")
+                .email("john.cena@gmail.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+
+        //when - action or the behaviour we are going to test
+        int deleted = employeeRepository.deleteEmployeesByIdIn(List.of(employee.getId(), employee1.getId(), -1L));
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(2);
+        assertThat(employeeRepository.findAll()).isEmpty();
+    }
+
     //JUnit test for custom query using JPQL with index
     @DisplayName("JUnit test for custom query using JPQL with index")
     @Test
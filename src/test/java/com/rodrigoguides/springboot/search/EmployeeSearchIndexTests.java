@@ -0,0 +1,303 @@
+package com.rodrigoguides.springboot.search;
+
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.store.OffHeapEmployeeStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeSearchIndexTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private EmployeeSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setup() {
+        searchIndex = new EmployeeSearchIndex(employeeRepository);
+        searchIndex.index(employee(1L, "Rodrigo", "Orellana", "rodrigo.orelana@gmail.com"));
+        searchIndex.index(employee(2L, "Domingo", "Rivera", "domingo.rivera@gmail.com"));
+        searchIndex.index(employee(3L, "Rosa", "Rodriguez", "rosa@gmail.com"));
+    }
+
+    private static Employee employee(long id, String firstName, String lastName, String email) {
+        return Employee.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .build();
+    }
+
+    //JUnit test for building the index from the repository
+    @DisplayName("JUnit test for building the index from the repository")
+    @Test
+    public void givenEmployeesInRepository_whenBuild_thenIndexEveryEmployee() {
+        //given - precondition or setup
+        searchIndex = new EmployeeSearchIndex(employeeRepository);
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1000)))
+                .willReturn(List.of(employee(7L, "John", "Snow", "john.snow@gmail.com")));
+
+        //when - action or the behaviour we are going to test
+        searchIndex.build();
+
+        //then - verify the output
+        assertThat(searchIndex.size()).isEqualTo(1);
+        assertThat(searchIndex.search("sno", 10)).extracting(Employee::getId).containsExactly(7L);
+    }
+
+    //JUnit test for changes committed while the index is built
+    @DisplayName("JUnit test for changes committed while the index is built")
+    @Test
+    public void givenChangesDuringBuild_whenBuild_thenApplyThemOverTheRowsReadBefore() {
+        //given - precondition or setup
+        searchIndex = new EmployeeSearchIndex(employeeRepository);
+        Employee renamed = employee(8L, "Arya", "Stark", "arya.stark@gmail.com");
+        renamed.setVersion(2L);
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1000))).willAnswer(invocation -> {
+            //both changes commit after the page was read, their events come in while it is being indexed
+            searchIndex.onEmployeeChanged(new EmployeeChangedEvent(21L, EmployeeChangeType.DELETED, 7L, null));
+            searchIndex.onEmployeeChanged(new EmployeeChangedEvent(22L, EmployeeChangeType.UPDATED, 8L, renamed));
+            Employee stale = employee(8L, "Arya", "Snow", "arya.snow@gmail.com");
+            stale.setVersion(1L);
+            return List.of(employee(7L, "John", "Snow", "john.snow@gmail.com"), stale);
+        });
+
+        //when - action or the behaviour we are going to test
+        searchIndex.build();
+
+        //then - verify the output
+        assertThat(searchIndex.size()).isEqualTo(1);
+        assertThat(searchIndex.search("snow", 10)).isEmpty();
+        assertThat(searchIndex.search("stark", 10)).extracting(Employee::getId).containsExactly(8L);
+    }
+
+    //negative scenario - the event of an earlier write arrives after a later one
+    //JUnit test for applying an update event older than the indexed employee
+    @DisplayName("JUnit test for applying an update event older than the indexed employee")
+    @Test
+    public void givenOlderUpdateEvent_whenOnEmployeeChanged_thenKeepIndexedEmployee() {
+        //given - precondition or setup
+        Employee newer = employee(2L, "Domingo", "Snow", "domingo.snow@gmail.com");
+        newer.setVersion(3L);
+        Employee older = employee(2L, "Domingo", "Stark", "domingo.stark@gmail.com");
+        older.setVersion(2L);
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(12L, EmployeeChangeType.UPDATED, 2L, newer));
+
+        //when - action or the behaviour we are going to test
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(11L, EmployeeChangeType.UPDATED, 2L, older));
+
+        //then - verify the output
+        assertThat(searchIndex.search("stark", 10)).isEmpty();
+        assertThat(searchIndex.search("snow", 10)).extracting(Employee::getId).containsExactly(2L);
+    }
+
+    //JUnit test for prefix search ranking
+    @DisplayName("JUnit test for prefix search ranking")
+    @Test
+    public void givenPrefix_whenSearch_thenRankExactAndNameMatchesFirst() {
+        //given - precondition or setup
+        searchIndex.index(employee(4L, "Ro", "Smith", "smith@gmail.com"));
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employees = searchIndex.search("Ro", 10);
+
+        //then - verify the output
+        assertThat(employees).extracting(Employee::getId).containsExactly(4L, 1L, 3L);
+    }
+
+    //JUnit test for searching with several terms
+    @DisplayName("JUnit test for searching with several terms")
+    @Test
+    public void givenSeveralTerms_whenSearch_thenEveryTermMustMatch() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employees = searchIndex.search("ro rodri", 10);
+
+        //then - verify the output
+        assertThat(employees).extracting(Employee::getId).containsExactly(1L, 3L);
+        assertThat(searchIndex.search("domingo orellana", 10)).isEmpty();
+        assertThat(searchIndex.search("gmail", 10)).isEmpty();
+        assertThat(searchIndex.search("rosa@gmail.com", 10)).extracting(Employee::getId).containsExactly(3L);
+    }
+
+    //JUnit test for limiting search results
+    @DisplayName("JUnit test for limiting search results")
+    @Test
+    public void givenLimit_whenSearch_thenReturnAtMostLimitEmployees() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employees = searchIndex.search("r", 2);
+
+        //then - verify the output
+        assertThat(employees).hasSize(2);
+    }
+
+    //JUnit test for applying an update event
+    @DisplayName("JUnit test for applying an update event")
+    @Test
+    public void givenUpdateEvent_whenOnEmployeeChanged_thenReindexEmployee() {
+        //given - precondition or setup
+        Employee updated = employee(2L, "Domingo", "Snow", "domingo.rivera@gmail.com");
+        updated.setVersion(1L);
+
+        //when - action or the behaviour we are going to test
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(11L, EmployeeChangeType.UPDATED, 2L, updated));
+
+        //then - verify the output
+        List<Employee> employees = searchIndex.search("domingo snow", 10);
+        assertThat(employees).extracting(Employee::getEmail).containsExactly("domingo.rivera@gmail.com");
+        assertThat(employees.get(0).getLastName()).isEqualTo("Snow");
+    }
+
+    //JUnit test for applying a delete event
+    @DisplayName("JUnit test for applying a delete event")
+    @Test
+    public void givenDeleteEvent_whenOnEmployeeChanged_thenRemoveEmployee() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(12L, EmployeeChangeType.DELETED, 1L, null));
+
+        //then - verify the output
+        assertThat(searchIndex.size()).isEqualTo(2);
+        assertThat(searchIndex.search("rodrigo", 10)).isEmpty();
+        assertThat(searchIndex.search("rodri", 10)).extracting(Employee::getId).containsExactly(3L);
+    }
+
+    //JUnit test for a late update of a deleted employee
+    @DisplayName("JUnit test for a late update of a deleted employee")
+    @Test
+    public void givenDeletedEmployee_whenEarlierUpdateArrivesLate_thenEmployeeStaysRemoved() {
+        //given - precondition or setup
+        Employee renamed = employee(2L, "Domingo", "Snow", "domingo.rivera@gmail.com");
+        renamed.setVersion(5L);
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(12L, EmployeeChangeType.DELETED, 2L, null));
+
+        //when - action or the behaviour we are going to test
+        //the listeners of the two commits ran in the other order
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(11L, EmployeeChangeType.UPDATED, 2L, renamed));
+
+        //then - verify the output
+        assertThat(searchIndex.search("domingo", 10)).isEmpty();
+        assertThat(searchIndex.search("snow", 10)).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(2);
+    }
+
+    //JUnit test for postings built out of id order
+    @DisplayName("JUnit test for postings built out of id order")
+    @Test
+    public void givenIdsIndexedOutOfOrder_whenSearch_thenFindEveryRemainingEmployee() {
+        //given - precondition or setup
+        List<Long> ids = new ArrayList<>();
+        for (long id = 100; id < 400; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(42));
+        for (Long id : ids) {
+            searchIndex.index(employee(id, "Zed", "Number" + id, "zed" + id + "@gmail.com"));
+        }
+
+        //when - action or the behaviour we are going to test
+        for (long id = 100; id < 400; id += 3) {
+            searchIndex.remove(id);
+        }
+        List<Employee> found = searchIndex.search("zed", 1000);
+
+        //then - verify the output
+        assertThat(found).hasSize(200);
+        assertThat(found).extracting(Employee::getId).doesNotContain(100L, 103L, 397L).contains(101L, 102L, 399L);
+    }
+
+    //JUnit test for patch events
+    @DisplayName("JUnit test for patch events")
+    @Test
+    public void givenPatchEvent_whenOnEmployeeChanged_thenReadBackPatchedEmployee() throws InterruptedException {
+        //given - precondition or setup
+        Employee patched = employee(2L, "Domingo", "Snow", "domingo.rivera@gmail.com");
+        patched.setVersion(1L);
+        given(employeeRepository.findAllById(List.of(2L))).willReturn(List.of(patched));
+
+        //when - action or the behaviour we are going to test
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(21L, EmployeeChangeType.UPDATED, 2L,
+                Employee.builder().id(2L).lastName("Snow").build(), true));
+
+        //then - verify the output
+        //the row is read back on the reload thread
+        for (int attempt = 0; attempt < 500 && searchIndex.search("snow", 10).isEmpty(); attempt++) {
+            Thread.sleep(10);
+        }
+        assertThat(searchIndex.search("snow", 10)).extracting(Employee::getLastName).containsExactly("Snow");
+        assertThat(searchIndex.search("domingo", 10)).extracting(Employee::getVersion).containsExactly(1L);
+    }
+
+    //JUnit test for applying a bulk write
+    @DisplayName("JUnit test for applying a bulk write")
+    @Test
+    public void givenBatchEvents_whenOnEmployeesChanged_thenReadBackCreatedAndRemoveDeleted() throws InterruptedException {
+        //given - precondition or setup
+        given(employeeRepository.findAllById(List.of(7L, 8L))).willReturn(List.of(
+                employee(7L, "John", "Snow", "john.snow@gmail.com"),
+                employee(8L, "Arya", "Stark", "arya.stark@gmail.com")));
+
+        //when - action or the behaviour we are going to test
+        searchIndex.onEmployeesChanged(new EmployeeBatchChangedEvent(EmployeeChangeType.CREATED, List.of(7L, 8L), 21L, 22L));
+        searchIndex.onEmployeesChanged(new EmployeeBatchChangedEvent(EmployeeChangeType.DELETED, List.of(1L, 2L), 23L, 24L));
+
+        //then - verify the output
+        //the rows are read back on the reload thread
+        for (int attempt = 0; attempt < 500 && searchIndex.size() != 3; attempt++) {
+            Thread.sleep(10);
+        }
+        assertThat(searchIndex.size()).isEqualTo(3);
+        assertThat(searchIndex.search("stark", 10)).extracting(Employee::getId).containsExactly(8L);
+        assertThat(searchIndex.search("domingo", 10)).isEmpty();
+    }
+
+    //JUnit test for searching the off-heap store
+    @DisplayName("JUnit test for searching the off-heap store")
+    @Test
+    public void givenOffHeapStore_whenSearch_thenResolveHitsThroughTheStore() {
+        //given - precondition or setup
+        OffHeapEmployeeStore store = new OffHeapEmployeeStore();
+        searchIndex = new EmployeeSearchIndex(employeeRepository, store);
+        Employee employee = employee(7L, "John", "Snow", "john.snow@gmail.com");
+        store.put(employee);
+        searchIndex.update(null, employee);
+        Employee renamed = employee(7L, "John", "Stark", "john.snow@gmail.com");
+        renamed.setVersion(1L);
+        store.put(renamed);
+        searchIndex.update(employee, renamed);
+
+        //when - action or the behaviour we are going to test
+        searchIndex.build();
+        searchIndex.onEmployeeChanged(new EmployeeChangedEvent(21L, EmployeeChangeType.DELETED, 7L, null));
+
+        //then - verify the output
+        assertThat(searchIndex.size()).isEqualTo(1);
+        assertThat(searchIndex.search("snow", 10)).extracting(Employee::getLastName).containsExactly("Stark");
+        assertThat(searchIndex.search("stark", 10)).extracting(Employee::getVersion).containsExactly(1L);
+        verifyNoInteractions(employeeRepository);
+    }
+}
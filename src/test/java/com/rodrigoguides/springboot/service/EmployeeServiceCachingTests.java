@@ -0,0 +1,201 @@
+package com.rodrigoguides.springboot.service;
+
+import com.rodrigoguides.springboot.config.CacheConfig;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.repository.EmployeeChangeRepository;
+import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.search.EmployeeSearchIndex;
+import com.rodrigoguides.springboot.service.impl.EmployeeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(classes = {EmployeeServiceImpl.class, CacheConfig.class}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class EmployeeServiceCachingTests {
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    @MockBean
+    private EmployeeSearchIndex searchIndex;
+
+    @MockBean
+    private EmployeeChangeRepository changeRepository;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Rodrigo")
+                .lastName("Orellana")
+                .email("rodrigo.orelana@gmail.com")
+                .build();
+    }
+
+    //JUnit test for cached getEmployeeById method
+    @DisplayName("JUnit test for cached getEmployeeById method")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeById_thenRepositoryIsCalledOnce() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        employeeService.getEmployeeById(1L);
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(cachedEmployee).contains(employee);
+        verify(employeeRepository, times(1)).findById(1L);
+    }
+
+    //JUnit test for cached getEmployeeById method with missing employee
+    @DisplayName("JUnit test for cached getEmployeeById method with missing employee")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeById_thenEmptyResultIsNotCached() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.empty());
+
+        //when - action or the behaviour we are going to test
+        employeeService.getEmployeeById(1L);
+        Optional<Employee> missingEmployee = employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(missingEmployee).isEmpty();
+        verify(employeeRepository, times(2)).findById(1L);
+    }
+
+    //JUnit test for cached getEmployeeByEmail method
+    @DisplayName("JUnit test for cached getEmployeeByEmail method")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeByEmail_thenRepositoryIsCalledOnce() {
+        //given - precondition or setup
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        employeeService.getEmployeeByEmail(employee.getEmail());
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeByEmail(employee.getEmail());
+
+        //then - verify the output
+        assertThat(cachedEmployee).contains(employee);
+        verify(employeeRepository, times(1)).findByEmail(employee.getEmail());
+    }
+
+    //JUnit test for cache refresh on updatedEmployee method
+    @DisplayName("JUnit test for cache refresh on updatedEmployee method")
+    @Test
+    public void givenCachedEmployee_whenUpdateEmployee_thenCacheHoldsUpdatedEmployee() {
+        //given - precondition or setup
+        Employee updatedEmployee = Employee.builder()
+                .id(1L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        given(employeeRepository.save(updatedEmployee)).willReturn(updatedEmployee);
+        employeeService.getEmployeeById(1L);
+
+        //when - action or the behaviour we are going to test
+        employeeService.updatedEmployee(updatedEmployee);
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(cachedEmployee).contains(updatedEmployee);
+        verify(employeeRepository, times(1)).findById(1L);
+    }
+
+    //JUnit test for cache eviction on deleteEmployee method
+    @DisplayName("JUnit test for cache eviction on deleteEmployee method")
+    @Test
+    public void givenCachedEmployee_whenDeleteEmployee_thenCacheIsEvicted() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        employeeService.getEmployeeById(1L);
+
+        //when - action or the behaviour we are going to test
+        employeeService.deleteEmployee(1L);
+        employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        verify(employeeRepository, times(2)).findById(1L);
+    }
+
+    //JUnit test for getEmployeeById method racing an eviction
+    @DisplayName("JUnit test for getEmployeeById method racing an eviction")
+    @Test
+    public void givenEvictionDuringLoad_whenGetEmployeeById_thenLoadedEmployeeIsNotCached() {
+        //given - precondition or setup
+        //a patch commits and evicts while the row read before it is still on its way
+        given(employeeRepository.findById(1L)).willAnswer(invocation -> {
+            cacheManager.getCache(CacheConfig.EMPLOYEES).evict(1L);
+            return Optional.of(employee);
+        });
+
+        //when - action or the behaviour we are going to test
+        Optional<Employee> loadedEmployee = employeeService.getEmployeeById(1L);
+        employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(loadedEmployee).contains(employee);
+        verify(employeeRepository, times(2)).findById(1L);
+    }
+
+    //JUnit test for cache puts out of version order
+    @DisplayName("JUnit test for cache puts out of version order")
+    @Test
+    public void givenNewerEmployeeCached_whenOlderEmployeeIsPut_thenNewerEmployeeIsKept() {
+        //given - precondition or setup
+        Employee newerEmployee = Employee.builder()
+                .id(1L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .version(2L)
+                .build();
+        employee.setVersion(1L);
+        given(employeeRepository.save(newerEmployee)).willReturn(newerEmployee);
+        given(employeeRepository.save(employee)).willReturn(employee);
+
+        //when - action or the behaviour we are going to test
+        //two updates committed in version order put their rows the other way round
+        employeeService.updatedEmployee(newerEmployee);
+        employeeService.updatedEmployee(employee);
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(cachedEmployee).contains(newerEmployee);
+        verify(employeeRepository, times(0)).findById(1L);
+    }
+
+}
@@ -1,29 +1,60 @@
 package com.rodrigoguides.springboot.service;
 
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
 import com.rodrigoguides.springboot.exception.ResourceNotFoundException;
 import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeBatchResult;
+import com.rodrigoguides.springboot.model.EmployeeChange;
+import com.rodrigoguides.springboot.model.EmployeeChangeFeed;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import com.rodrigoguides.springboot.model.EmployeePage;
+import com.rodrigoguides.springboot.repository.EmployeeChangeRepository;
 import com.rodrigoguides.springboot.repository.EmployeeRepository;
+import com.rodrigoguides.springboot.search.EmployeeSearchIndex;
 import com.rodrigoguides.springboot.service.impl.EmployeeServiceImpl;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.Mockito.*;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 public class EmployeeServiceTests {
@@ -31,6 +62,21 @@ public class EmployeeServiceTests {
     @Mock
     private EmployeeRepository employeeRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EmployeeSearchIndex searchIndex;
+
+    @Mock
+    private EmployeeChangeRepository changeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private EmployeeServiceImpl employeeService;
 
@@ -54,9 +100,7 @@ public class EmployeeServiceTests {
     public void givenEmployeeObject_whenSaveEmployee_thenReturnEmployeeObject() {
         //given - precondition or setup
 
-        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
-
-        given(employeeRepository.save(employee)).willReturn(employee);
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
 
         System.out.println(employeeRepository);
         System.out.println(employeeService);
@@ -74,9 +118,8 @@ public class EmployeeServiceTests {
     public void givenExistingEmail_whenSaveEmployee_thenThrowsException() {
         //given - precondition or setup
 
-        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
-
-        // given(employeeRepository.save(employee)).willReturn(employee);
+        given(employeeRepository.saveAndFlush(employee)).willThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Duplicate entry", new SQLException(), Employee.EMAIL_INDEX)));
 
         System.out.println(employeeRepository);
         System.out.println(employeeService);
@@ -87,7 +130,177 @@ public class EmployeeServiceTests {
         });
 
         //then - verify the output
-        verify(employeeRepository, never()).save(any(Employee.class));
+        verify(employeeRepository, times(1)).saveAndFlush(any(Employee.class));
+    }
+
+    //JUnit test for save Employee method which fails on another constraint
+    @DisplayName("JUnit test for save Employee method which fails on another constraint")
+    @Test
+    public void givenMissingFirstName_whenSaveEmployee_thenRethrowsDataIntegrityViolation() {
+        //given - precondition or setup
+        given(employeeRepository.saveAndFlush(employee)).willThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("NULL not allowed", new SQLException(), null)));
+
+        //when - action or the behaviour we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
+            employeeService.saveEmployee(employee);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).findByEmail(any());
+    }
+
+    //JUnit test for EmployeeService saveEmployees method
+    @DisplayName("JUnit test for EmployeeService saveEmployees method")
+    @Test
+    public void givenEmployeesWithDuplicates_whenSaveEmployees_thenReturnResultPerEmployee() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        Employee employee3 = Employee.builder()
+                .firstName("John")
+                .build();
+
+        given(employeeRepository.findExistingEmails(any())).willReturn(Set.of(employee.getEmail()));
+
+        //when - action or the behaviour we are going to test
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(List.of(employee, employee1, employee2, employee3));
+
+        //then - verify the output
+        assertThat(results).extracting(EmployeeBatchResult::getStatus).containsExactly(
+                EmployeeBatchResult.Status.DUPLICATE,
+                EmployeeBatchResult.Status.CREATED,
+                EmployeeBatchResult.Status.DUPLICATE,
+                EmployeeBatchResult.Status.INVALID);
+        assertThat(results.get(1).getEmployee()).isEqualTo(employee1);
+        verify(employeeRepository, times(1)).findExistingEmails(any());
+        verify(employeeRepository, times(1)).insertAll(List.of(employee1));
+        verify(changeRepository).insertAll(any());
+        verify(eventPublisher).publishEvent(any(EmployeeBatchChangedEvent.class));
+    }
+
+    //JUnit test for EmployeeService saveEmployees method with more than one insert batch
+    @DisplayName("JUnit test for EmployeeService saveEmployees method with more than one insert batch")
+    @Test
+    public void givenMoreEmployeesThanInsertBatch_whenSaveEmployees_thenPublishOneBatchEvent() {
+        //given - precondition or setup
+        List<Employee> employees = new ArrayList<>();
+        for (long id = 1; id <= 120; id++) {
+            employees.add(Employee.builder()
+                    .firstName("First" + id)
+                    .lastName("Last" + id)
+                    .email("employee" + id + "@gmail.com")
+                    .build());
+        }
+        given(employeeRepository.findExistingEmails(any())).willReturn(Set.of());
+        willAnswer(invocation -> {
+            List<Employee> saved = invocation.getArgument(0);
+            saved.forEach(employee -> employee.setId(Long.parseLong(employee.getFirstName().substring(5))));
+            return null;
+        }).given(employeeRepository).insertAll(any());
+        willAnswer(invocation -> {
+            List<EmployeeChange> changes = invocation.getArgument(0);
+            changes.forEach(change -> change.setSeq(1000L + change.getEmployeeId()));
+            return null;
+        }).given(changeRepository).insertAll(any());
+
+        //when - action or the behaviour we are going to test
+        employeeService.saveEmployees(employees);
+
+        //then - verify the output
+        verify(employeeRepository, times(3)).insertAll(any());
+        verify(changeRepository, times(1)).insertAll(any());
+        ArgumentCaptor<EmployeeBatchChangedEvent> event = ArgumentCaptor.forClass(EmployeeBatchChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangeType.CREATED);
+        assertThat(event.getValue().getEmployeeIds()).hasSize(120).startsWith(1L, 2L).endsWith(120L);
+        assertThat(event.getValue().getFirstSeq()).isEqualTo(1001L);
+        assertThat(event.getValue().getLastSeq()).isEqualTo(1120L);
+    }
+
+    //JUnit test for EmployeeService saveEmployees method with emails that differ in case only
+    @DisplayName("JUnit test for EmployeeService saveEmployees method with emails that differ in case only")
+    @Test
+    public void givenEmailsDifferingInCase_whenSaveEmployees_thenReturnDuplicates() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("Domingo.Rivera@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Ramon")
+                .lastName("Carnicer")
+                .email("domingo.rivera@GMAIL.com")
+                .build();
+        Employee employee3 = Employee.builder()
+                .firstName("Ramesh")
+                .lastName("Fadatare")
+                .email("RODRIGO.ORELANA@gmail.com")
+                .build();
+        //stored as rodrigo.orelana@gmail.com, found through the case-insensitive index
+        given(employeeRepository.findExistingEmails(any())).willReturn(Set.of(employee.getEmail()));
+
+        //when - action or the behaviour we are going to test
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(List.of(employee1, employee2, employee3));
+
+        //then - verify the output
+        assertThat(results).extracting(EmployeeBatchResult::getStatus).containsExactly(
+                EmployeeBatchResult.Status.CREATED,
+                EmployeeBatchResult.Status.DUPLICATE,
+                EmployeeBatchResult.Status.DUPLICATE);
+        ArgumentCaptor<Collection<String>> emails = ArgumentCaptor.forClass(Collection.class);
+        verify(employeeRepository).findExistingEmails(emails.capture());
+        assertThat(emails.getValue()).contains("rodrigo.orelana@gmail.com", "RODRIGO.ORELANA@gmail.com");
+    }
+
+    //negative scenario - a concurrent writer takes an email after the check
+    //JUnit test for EmployeeService saveEmployees method when the unique index rejects an email
+    @DisplayName("JUnit test for EmployeeService saveEmployees method when the unique index rejects an email")
+    @Test
+    public void givenEmailTakenAfterTheCheck_whenSaveEmployees_thenRetryAndReturnDuplicate() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("John")
+                .lastName("Snow")
+                .email("john.snow@gmail.com")
+                .build();
+        given(employeeRepository.findExistingEmails(any()))
+                .willReturn(Set.of())
+                .willReturn(Set.of("domingo.rivera@gmail.com"));
+        //the batch sets the ids before the index rejects it
+        willAnswer(invocation -> {
+            employee1.setId(51L);
+            employee2.setId(52L);
+            throw new DataIntegrityViolationException("could not execute statement",
+                    new ConstraintViolationException("Duplicate entry", new SQLException(), Employee.EMAIL_INDEX));
+        }).willDoNothing()
+                .given(employeeRepository).insertAll(any());
+
+        //when - action or the behaviour we are going to test
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(List.of(employee1, employee2));
+
+        //then - verify the output
+        assertThat(results).extracting(EmployeeBatchResult::getStatus).containsExactly(
+                EmployeeBatchResult.Status.DUPLICATE,
+                EmployeeBatchResult.Status.CREATED);
+        //the second attempt saves the employee as new again, not with the id of the rolled back insert
+        assertThat(employee2.getId()).isZero();
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
     }
 
     //JUnit test for EmployeeService getAllEmployees method
@@ -102,7 +315,8 @@ public class EmployeeServiceTests {
                 .email("domingo.rivera@gmail.com")
                 .build();
 
-        given(employeeRepository.findAll()).willReturn(List.of(employee, employee1));
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, EmployeeService.MAX_PAGE_SIZE)))
+                .willReturn(List.of(employee, employee1));
 
         //when - action or the behaviour we are going to test
         List<Employee> employeeList = employeeService.getAllEmployees();
@@ -125,7 +339,8 @@ public class EmployeeServiceTests {
                 .email("domingo.rivera@gmail.com")
                 .build();
 
-        given(employeeRepository.findAll()).willReturn(Collections.emptyList());
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, EmployeeService.MAX_PAGE_SIZE)))
+                .willReturn(Collections.emptyList());
 
         //when - action or the behaviour we are going to test
         List<Employee> employeeList = employeeService.getAllEmployees();
@@ -135,6 +350,70 @@ public class EmployeeServiceTests {
         Assertions.assertThat(employeeList.size()).isEqualTo(0);
     }
 
+    //JUnit test for EmployeeService getEmployees method
+    @DisplayName("JUnit test for EmployeeService getEmployees method")
+    @Test
+    public void givenMoreEmployeesThanLimit_whenGetEmployees_thenReturnPageWithNextCursor() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .willReturn(List.of(employee, employee1));
+
+        //when - action or the behaviour we are going to test
+        EmployeePage employeePage = employeeService.getEmployees(0L, 1);
+
+        //then - verify the output
+        assertThat(employeePage.getContent()).containsExactly(employee);
+        assertThat(employeePage.getNextCursor()).isEqualTo(employee.getId());
+        assertThat(employeePage.getLimit()).isEqualTo(1);
+    }
+
+    //JUnit test for EmployeeService getEmployees method - last page
+    @DisplayName("JUnit test for EmployeeService getEmployees method - last page")
+    @Test
+    public void givenLastPage_whenGetEmployees_thenReturnPageWithoutNextCursor() {
+        //given - precondition or setup
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, EmployeeService.MAX_PAGE_SIZE + 1)))
+                .willReturn(List.of(employee));
+
+        //when - action or the behaviour we are going to test
+        EmployeePage employeePage = employeeService.getEmployees(0L, Integer.MAX_VALUE);
+
+        //then - verify the output
+        assertThat(employeePage.getContent()).containsExactly(employee);
+        assertThat(employeePage.getNextCursor()).isNull();
+        assertThat(employeePage.getLimit()).isEqualTo(EmployeeService.MAX_PAGE_SIZE);
+    }
+
+    //JUnit test for EmployeeService exportEmployees method
+    @DisplayName("JUnit test for EmployeeService exportEmployees method")
+    @Test
+    public void givenEmployeesStream_whenExportEmployees_thenConsumeEveryEmployee() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("Domingo")
+                .lastName("Rivera")
+                .email("domingo.rivera@gmail.com")
+                .build();
+        given(employeeRepository.streamAllByOrderByIdAsc()).willReturn(Stream.of(employee, employee1));
+        List<Employee> exported = new ArrayList<>();
+
+        //when - action or the behaviour we are going to test
+        long count = employeeService.exportEmployees(exported::add);
+
+        //then - verify the output
+        assertThat(count).isEqualTo(2);
+        assertThat(exported).containsExactly(employee, employee1);
+        verify(entityManager, never()).clear();
+    }
+
     //JUnit test for EmployeeService getEmployeeById method
     @DisplayName("JUnit test for EmployeeService getEmployeeById method")
     @Test
@@ -149,6 +428,106 @@ public class EmployeeServiceTests {
         assertThat(savedEmployee).isNotNull();
     }
 
+    //JUnit test for EmployeeService getEmployeeByEmail method
+    @DisplayName("JUnit test for EmployeeService getEmployeeByEmail method")
+    @Test
+    public void givenEmployeeEmail_whenGetEmployeeByEmail_thenReturnEmployeeObject() {
+        //given - precondition or setup
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour we are going to test
+        Employee savedEmployee = employeeService.getEmployeeByEmail(employee.getEmail()).get();
+
+        //then - verify the output
+        assertThat(savedEmployee).isNotNull();
+    }
+
+    //JUnit test for EmployeeService getEmployeeById and getEmployeeByEmail methods under a burst of identical lookups
+    @DisplayName("JUnit test for EmployeeService getEmployeeById and getEmployeeByEmail methods under a burst of identical lookups")
+    @Test
+    @Timeout(10)
+    public void givenConcurrentIdenticalLookups_whenGetEmployee_thenQueryOncePerKey() throws Exception {
+        //given - precondition or setup
+        CountDownLatch release = new CountDownLatch(1);
+        given(employeeRepository.findById(1L)).willAnswer(invocation -> {
+            release.await();
+            return Optional.of(employee);
+        });
+        given(employeeRepository.findByEmail(employee.getEmail())).willAnswer(invocation -> {
+            release.await();
+            return Optional.of(employee);
+        });
+        List<Thread> threads = new ArrayList<>();
+        List<Optional<Employee>> results = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 32; i++) {
+            boolean byId = i % 2 == 0;
+            threads.add(new Thread(() -> results.add(byId
+                    ? employeeService.getEmployeeById(1L)
+                    : employeeService.getEmployeeByEmail(employee.getEmail()))));
+        }
+
+        //when - action or the behaviour we are going to test
+        threads.forEach(Thread::start);
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        //then - verify the output
+        assertThat(results).hasSize(32).allMatch(result -> result.get() == employee);
+        verify(employeeRepository, times(1)).findById(1L);
+        verify(employeeRepository, times(1)).findByEmail(employee.getEmail());
+    }
+
+    //JUnit test for EmployeeService getEmployeeVersion method
+    @DisplayName("JUnit test for EmployeeService getEmployeeVersion method")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeVersion_thenReturnVersion() {
+        //given - precondition or setup
+        given(employeeRepository.findVersionById(1L)).willReturn(Optional.of(2L));
+
+        //when - action or the behaviour we are going to test
+        Optional<Long> version = employeeService.getEmployeeVersion(1L);
+
+        //then - verify the output
+        assertThat(version).contains(2L);
+        verify(employeeRepository, never()).findById(1L);
+    }
+
+    //JUnit test for EmployeeService getEmployeeFields method
+    @DisplayName("JUnit test for EmployeeService getEmployeeFields method")
+    @Test
+    public void givenFields_whenGetEmployeeFields_thenQueryDistinctFieldsWithCappedLimit() {
+        //given - precondition or setup
+        List<Map<String, Object>> rows = List.of(Map.of("email", employee.getEmail()));
+        given(employeeRepository.findFieldsByIdGreaterThan(new LinkedHashSet<>(List.of("email")), 0L, EmployeeService.MAX_PAGE_SIZE)).willReturn(rows);
+
+        //when - action or the behaviour we are going to test
+        List<Map<String, Object>> employees = employeeService.getEmployeeFields(List.of("email", "email"), 0L, 5000);
+
+        //then - verify the output
+        assertThat(employees).isEqualTo(rows);
+        verify(employeeRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    //JUnit test for EmployeeService searchEmployees method
+    @DisplayName("JUnit test for EmployeeService searchEmployees method")
+    @Test
+    public void givenSearchQuery_whenSearchEmployees_thenReturnMatchesFromIndex() {
+        //given - precondition or setup
+        given(searchIndex.search("rod", EmployeeService.MAX_PAGE_SIZE)).willReturn(List.of(employee));
+
+        //when - action or the behaviour we are going to test
+        List<Employee> employees = employeeService.searchEmployees("rod", 5000);
+
+        //then - verify the output
+        assertThat(employees).containsExactly(employee);
+        verifyNoInteractions(employeeRepository);
+    }
+
     //JUnit test for EmployeeService updateEmployee method
     @DisplayName("JUnit test for EmployeeService updateEmployee method")
     @Test
@@ -166,19 +545,205 @@ public class EmployeeServiceTests {
         assertThat(updatedEmployee.getFirstName()).isEqualTo("John");
     }
 
+    //JUnit test for EmployeeService patchEmployee method
+    @DisplayName("JUnit test for EmployeeService patchEmployee method")
+    @Test
+    public void givenEmployeeFields_whenPatchEmployee_thenUpdateInSingleStatement() {
+        //given - precondition or setup
+        Employee patch = Employee.builder()
+                .email("john.snow@gmail.com")
+                .build();
+        given(employeeRepository.updateEmployeeFields(1L, null, null, "john.snow@gmail.com")).willReturn(1);
+        given(changeRepository.save(any(EmployeeChange.class))).willAnswer(invocation -> {
+            EmployeeChange change = invocation.getArgument(0);
+            change.setSeq(42L);
+            return change;
+        });
+
+        //when - action or the behaviour we are going to test
+        boolean patched = employeeService.patchEmployee(1L, patch);
+
+        //then - verify the output
+        assertThat(patched).isTrue();
+        verify(employeeRepository, never()).save(any(Employee.class));
+        //one round trip for the row: it is not read back, subscribers get the patched fields
+        verify(employeeRepository, never()).findById(1L);
+        ArgumentCaptor<EmployeeChangedEvent> event = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getSeq()).isEqualTo(42L);
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangeType.UPDATED);
+        assertThat(event.getValue().isPatch()).isTrue();
+        assertThat(event.getValue().getEmployee().getId()).isEqualTo(1L);
+        assertThat(event.getValue().getEmployee().getEmail()).isEqualTo("john.snow@gmail.com");
+        assertThat(event.getValue().getEmployee().getFirstName()).isNull();
+    }
+
     //JUnit test for EmployeeService deleteEmployee method
     @DisplayName("JUnit test for EmployeeService deleteEmployee method")
     @Test
-    public void givenEmployeeId_whenDeleteEmployee_thenReturnNothing() {
+    public void givenEmployeeId_whenDeleteEmployee_thenReturnTrue() {
         //given - precondition or setup
         long employeeId = 1L;
-        willDoNothing().given(employeeRepository).deleteById(1L);
+        given(employeeRepository.deleteEmployeeById(employeeId)).willReturn(1);
 
         //when - action or the behaviour we are going to test
-        employeeService.deleteEmployee(employeeId);
+        boolean deleted = employeeService.deleteEmployee(employeeId);
 
         //then - verify the output
-        verify(employeeRepository, times(1)).deleteById(employeeId);
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, times(1)).deleteEmployeeById(employeeId);
+        verify(employeeRepository, never()).findById(employeeId);
+        ArgumentCaptor<EmployeeChange> tombstone = ArgumentCaptor.forClass(EmployeeChange.class);
+        verify(changeRepository).save(tombstone.capture());
+        assertThat(tombstone.getValue().getEmployeeId()).isEqualTo(employeeId);
+        assertThat(tombstone.getValue().getType()).isEqualTo(EmployeeChangeType.DELETED);
+    }
+
+    //JUnit test for EmployeeService deleteEmployee method - invalid employee id
+    @DisplayName("JUnit test for EmployeeService deleteEmployee method - invalid employee id")
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturnFalse() {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeRepository.deleteEmployeeById(employeeId)).willReturn(0);
+
+        //when - action or the behaviour we are going to test
+        boolean deleted = employeeService.deleteEmployee(employeeId);
+
+        //then - verify the output
+        assertThat(deleted).isFalse();
+        verifyNoInteractions(eventPublisher, changeRepository);
+    }
+
+    //JUnit test for EmployeeService deleteEmployees method
+    @DisplayName("JUnit test for EmployeeService deleteEmployees method")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturnDeletedCount() {
+        //given - precondition or setup
+        //3 does not exist
+        given(employeeRepository.findExistingIdsForUpdate(any())).willReturn(List.of(1L, 2L));
+        given(employeeRepository.deleteEmployeesByIdIn(List.of(1L, 2L))).willReturn(2);
+
+        //when - action or the behaviour we are going to test
+        int deleted = employeeService.deleteEmployees(List.of(1L, 2L, 2L, 3L));
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(2);
+        verify(employeeRepository, times(1)).deleteEmployeesByIdIn(any());
+        ArgumentCaptor<List<EmployeeChange>> tombstones = ArgumentCaptor.forClass(List.class);
+        verify(changeRepository).insertAll(tombstones.capture());
+        assertThat(tombstones.getValue()).extracting(EmployeeChange::getEmployeeId).containsExactly(1L, 2L);
+        //one event for the whole delete
+        ArgumentCaptor<EmployeeBatchChangedEvent> event = ArgumentCaptor.forClass(EmployeeBatchChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangeType.DELETED);
+        assertThat(event.getValue().getEmployeeIds()).containsExactly(1L, 2L);
+    }
+
+    //negative scenario - none of the ids exist
+    //JUnit test for EmployeeService deleteEmployees method with unknown ids
+    @DisplayName("JUnit test for EmployeeService deleteEmployees method with unknown ids")
+    @Test
+    public void givenUnknownEmployeeIds_whenDeleteEmployees_thenPublishNothing() {
+        //given - precondition or setup
+        given(employeeRepository.findExistingIdsForUpdate(any())).willReturn(List.of());
+
+        //when - action or the behaviour we are going to test
+        int deleted = employeeService.deleteEmployees(List.of(7L, 8L));
+
+        //then - verify the output
+        assertThat(deleted).isZero();
+        verify(employeeRepository, never()).deleteEmployeesByIdIn(any());
+        verifyNoInteractions(changeRepository, eventPublisher);
+    }
+
+    //JUnit test for EmployeeService getEmployeeChanges method
+    @DisplayName("JUnit test for EmployeeService getEmployeeChanges method")
+    @Test
+    public void givenRecordedChanges_whenGetEmployeeChanges_thenReturnLatestChangePerEmployee() {
+        //given - precondition or setup
+        Instant now = Instant.now().minusSeconds(60);
+        given(changeRepository.currentTimestamp()).willReturn(Timestamp.from(Instant.now()));
+        given(changeRepository.findBySeqGreaterThanOrderBySeqAsc(10L, PageRequest.of(0, 5)))
+                .willReturn(List.of(
+                        new EmployeeChange(11L, 1L, EmployeeChangeType.CREATED, now),
+                        new EmployeeChange(12L, 2L, EmployeeChangeType.CREATED, now),
+                        new EmployeeChange(13L, 1L, EmployeeChangeType.UPDATED, now),
+                        new EmployeeChange(14L, 3L, EmployeeChangeType.DELETED, now)));
+        given(employeeRepository.findAllById(Set.of(1L, 2L))).willReturn(List.of(employee));
+
+        //when - action or the behaviour we are going to test
+        EmployeeChangeFeed feed = employeeService.getEmployeeChanges(10L, 4);
+
+        //then - verify the output
+        //employee 2 was deleted after these changes, a later page carries its tombstone
+        assertThat(feed.getChanges()).extracting(EmployeeChangeFeed.Change::getSeq).containsExactly(13L, 14L);
+        assertThat(feed.getChanges()).extracting(EmployeeChangeFeed.Change::getType)
+                .containsExactly(EmployeeChangeType.UPDATED, EmployeeChangeType.DELETED);
+        assertThat(feed.getChanges().get(0).getEmployee()).isSameAs(employee);
+        assertThat(feed.getChanges().get(1).getEmployee()).isNull();
+        assertThat(feed.getNextToken()).isEqualTo(14L);
+        assertThat(feed.isHasMore()).isFalse();
+    }
+
+    //negative scenario - a later change settled before an earlier one
+    //JUnit test for EmployeeService getEmployeeChanges method
+    @DisplayName("JUnit test for EmployeeService getEmployeeChanges method (out of order commit)")
+    @Test
+    public void givenUnsettledChangeBeforeSettledOne_whenGetEmployeeChanges_thenStopBeforeIt() {
+        //given - precondition or setup
+        Instant settled = Instant.now().minusSeconds(60);
+        EmployeeChange first = new EmployeeChange(11L, 1L, EmployeeChangeType.CREATED, settled);
+        //12 committed after 13 (or is not old enough yet), 13 must not be returned without it
+        EmployeeChange young = new EmployeeChange(12L, 2L, EmployeeChangeType.CREATED, Instant.now());
+        EmployeeChange last = new EmployeeChange(13L, 3L, EmployeeChangeType.CREATED, settled);
+        given(changeRepository.currentTimestamp()).willReturn(Timestamp.from(Instant.now()));
+        given(changeRepository.findBySeqGreaterThanOrderBySeqAsc(10L, PageRequest.of(0, 11)))
+                .willReturn(List.of(first, young, last));
+        given(employeeRepository.findAllById(Set.of(1L))).willReturn(List.of(employee));
+
+        //when - action or the behaviour we are going to test
+        EmployeeChangeFeed feed = employeeService.getEmployeeChanges(10L, 10);
+
+        //then - verify the output
+        assertThat(feed.getChanges()).extracting(EmployeeChangeFeed.Change::getSeq).containsExactly(11L);
+        assertThat(feed.getNextToken()).isEqualTo(11L);
+        assertThat(feed.isHasMore()).isFalse();
+    }
+
+    //JUnit test for EmployeeService getEmployeeChanges method (database clock)
+    @DisplayName("JUnit test for EmployeeService getEmployeeChanges method (database clock)")
+    @Test
+    public void givenApplicationClockAhead_whenGetEmployeeChanges_thenSettleByDatabaseClock() {
+        //given - precondition or setup
+        Instant databaseNow = Instant.now().minusSeconds(3600);
+        given(changeRepository.currentTimestamp()).willReturn(Timestamp.from(databaseNow));
+        //old for this instance, but only 5 seconds old for the database that stamped it
+        EmployeeChange change = new EmployeeChange(11L, 1L, EmployeeChangeType.CREATED, databaseNow.minusSeconds(5));
+        given(changeRepository.findBySeqGreaterThanOrderBySeqAsc(10L, PageRequest.of(0, 11))).willReturn(List.of(change));
+
+        //when - action or the behaviour we are going to test
+        EmployeeChangeFeed feed = employeeService.getEmployeeChanges(10L, 10);
+
+        //then - verify the output
+        assertThat(feed.getChanges()).isEmpty();
+        assertThat(feed.getNextToken()).isEqualTo(10L);
+    }
+
+    //negative scenario - a settle time a write transaction can outlast
+    //JUnit test for EmployeeService setChangeFeedSettleTime method
+    @DisplayName("JUnit test for EmployeeService setChangeFeedSettleTime method")
+    @Test
+    public void givenSettleTimeWithinWriteTimeout_whenSetChangeFeedSettleTime_thenThrowsException() {
+        //given - precondition or setup
+        Duration settleTime = Duration.ofSeconds(2L * EmployeeServiceImpl.WRITE_TIMEOUT_SECONDS);
+
+        //when - action or the behaviour we are going to test
+        //then - verify the output
+        assertThatThrownBy(() -> employeeService.setChangeFeedSettleTime(settleTime))
+                .isInstanceOf(IllegalArgumentException.class);
+        employeeService.setChangeFeedSettleTime(settleTime.plusSeconds(1));
+        employeeService.setChangeFeedSettleTime(Duration.ZERO);
     }
 
 }
@@ -0,0 +1,201 @@
+package com.rodrigoguides.springboot.store;
+
+import com.rodrigoguides.springboot.model.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapEmployeeStoreTests {
+
+    private OffHeapEmployeeStore store;
+
+    @BeforeEach
+    public void setup() {
+        //small slabs so the tests go through slab rollover and compaction
+        store = new OffHeapEmployeeStore(4096);
+        store.put(employee(1L, "Rodrigo", "Orellana", "rodrigo.orelana@gmail.com", 0L));
+        store.put(employee(2L, "Domingo", "Rivera", "domingo.rivera@gmail.com", 3L));
+    }
+
+    private static Employee employee(long id, String firstName, String lastName, String email, long version) {
+        return Employee.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .version(version)
+                .build();
+    }
+
+    //JUnit test for get by id and by email
+    @DisplayName("JUnit test for get by id and by email")
+    @Test
+    public void givenStoredEmployee_whenGetByIdOrEmail_thenReturnCopyOfRecord() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        Employee byId = store.get(2L);
+        Employee byEmail = store.getByEmail("domingo.rivera@gmail.com");
+
+        //then - verify the output
+        assertThat(byId).usingRecursiveComparison().isEqualTo(employee(2L, "Domingo", "Rivera", "domingo.rivera@gmail.com", 3L));
+        assertThat(byEmail).usingRecursiveComparison().isEqualTo(byId);
+        assertThat(byId).isNotSameAs(store.get(2L));
+        assertThat(store.getVersion(2L)).isEqualTo(3L);
+        assertThat(store.get(3L)).isNull();
+        assertThat(store.getByEmail("nobody@gmail.com")).isNull();
+        assertThat(store.getVersion(3L)).isEqualTo(-1L);
+    }
+
+    //JUnit test for put replacing an employee
+    @DisplayName("JUnit test for put replacing an employee")
+    @Test
+    public void givenStoredEmployee_whenPutNewEmail_thenOldEmailNoLongerFound() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        store.put(employee(1L, "Rodrigo", "Orellana", "rodrigo@gmail.com", 1L));
+
+        //then - verify the output
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.getByEmail("rodrigo.orelana@gmail.com")).isNull();
+        assertThat(store.getByEmail("rodrigo@gmail.com").getId()).isEqualTo(1L);
+        assertThat(store.getVersion(1L)).isEqualTo(1L);
+    }
+
+    //negative scenario - the event of an earlier write arrives after a later one
+    //JUnit test for put with an older version
+    @DisplayName("JUnit test for put with an older version")
+    @Test
+    public void givenStoredEmployee_whenPutSameOrOlderVersion_thenKeepStoredRecord() {
+        //given - precondition or setup
+        store.put(employee(2L, "Domingo", "Snow", "domingo.snow@gmail.com", 5L));
+
+        //when - action or the behaviour we are going to test
+        boolean older = store.put(employee(2L, "Domingo", "Rivera", "domingo.rivera@gmail.com", 4L));
+        boolean same = store.put(employee(2L, "Domingo", "Stark", "domingo.stark@gmail.com", 5L));
+
+        //then - verify the output
+        assertThat(older).isFalse();
+        assertThat(same).isFalse();
+        assertThat(store.get(2L)).usingRecursiveComparison().isEqualTo(employee(2L, "Domingo", "Snow", "domingo.snow@gmail.com", 5L));
+        assertThat(store.getByEmail("domingo.rivera@gmail.com")).isNull();
+    }
+
+    //JUnit test for remove
+    @DisplayName("JUnit test for remove")
+    @Test
+    public void givenStoredEmployee_whenRemove_thenNotFoundByIdEmailOrPage() {
+        //given - precondition or setup
+
+        //when - action or the behaviour we are going to test
+        boolean removed = store.remove(1L);
+
+        //then - verify the output
+        assertThat(removed).isTrue();
+        assertThat(store.remove(1L)).isFalse();
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.getByEmail("rodrigo.orelana@gmail.com")).isNull();
+        assertThat(store.page(0L, 10)).extracting(Employee::getId).containsExactly(2L);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    //negative scenario - the update of an employee arrives after its delete
+    //JUnit test for put after remove
+    @DisplayName("JUnit test for put after remove")
+    @Test
+    public void givenRemovedEmployee_whenPutAnyVersion_thenStayDeleted() {
+        //given - precondition or setup
+        store.remove(1L);
+        //the delete of an employee this store has not seen yet
+        store.remove(3L);
+
+        //when - action or the behaviour we are going to test
+        boolean updated = store.put(employee(1L, "Rodrigo", "Orellana", "rodrigo@gmail.com", 1L));
+        boolean created = store.put(employee(3L, "Rosa", "Rodriguez", "rosa@gmail.com", 0L));
+
+        //then - verify the output
+        assertThat(updated).isFalse();
+        assertThat(created).isFalse();
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.get(3L)).isNull();
+        assertThat(store.getByEmail("rodrigo@gmail.com")).isNull();
+        assertThat(store.page(0L, 10)).extracting(Employee::getId).containsExactly(2L);
+    }
+
+    //JUnit test for keyset paging
+    @DisplayName("JUnit test for keyset paging")
+    @Test
+    public void givenEmployeesOutOfOrder_whenPage_thenReturnInIdOrder() {
+        //given - precondition or setup
+        for (long id = 100; id >= 3; id--) {
+            store.put(employee(id, "First" + id, "Last" + id, "employee" + id + "@gmail.com", 0L));
+        }
+
+        //when - action or the behaviour we are going to test
+        List<Employee> page = store.page(10L, 3);
+
+        //then - verify the output
+        assertThat(page).extracting(Employee::getId).containsExactly(11L, 12L, 13L);
+        assertThat(store.page(98L, 10)).extracting(Employee::getId).containsExactly(99L, 100L);
+        assertThat(store.page(100L, 10)).isEmpty();
+    }
+
+    //JUnit test for compaction after many updates
+    @DisplayName("JUnit test for compaction after many updates")
+    @Test
+    public void givenManyUpdates_whenGarbageExceedsLiveRecords_thenCompactAndKeepLatestValues() {
+        //given - precondition or setup
+        for (long id = 3; id <= 50; id++) {
+            store.put(employee(id, "First" + id, "Last" + id, "employee" + id + "@gmail.com", 0L));
+        }
+
+        //when - action or the behaviour we are going to test
+        for (long version = 1; version <= 20; version++) {
+            for (long id = 3; id <= 50; id++) {
+                store.put(employee(id, "First" + id, "Last" + id, "employee" + id + "." + version + "@gmail.com", version));
+            }
+        }
+
+        //then - verify the output
+        assertThat(store.size()).isEqualTo(50);
+        //48 employees * ~70 bytes fit in one slab, the 20 rewrites would need about twenty without compaction
+        assertThat(store.offHeapBytes()).isLessThanOrEqualTo(4 * 4096);
+        for (long id = 3; id <= 50; id++) {
+            assertThat(store.get(id).getEmail()).isEqualTo("employee" + id + ".20@gmail.com");
+            assertThat(store.getByEmail("employee" + id + ".20@gmail.com").getId()).isEqualTo(id);
+            assertThat(store.getByEmail("employee" + id + ".19@gmail.com")).isNull();
+        }
+        assertThat(store.get(1L).getFirstName()).isEqualTo("Rodrigo");
+    }
+
+    //JUnit test for employees whose email hashes collide
+    @DisplayName("JUnit test for employees whose email hashes collide")
+    @Test
+    public void givenManyEmployees_whenGetByEmail_thenEveryEmailResolvesToItsEmployee() {
+        //given - precondition or setup
+        for (long id = 3; id <= 5_000; id++) {
+            store.put(employee(id, "F", "L", "e" + id + "@x.io", 0L));
+        }
+
+        //when - action or the behaviour we are going to test
+        for (long id = 3; id <= 5_000; id += 2) {
+            store.remove(id);
+        }
+
+        //then - verify the output
+        assertThat(store.size()).isEqualTo(2 + 2_499);
+        for (long id = 3; id <= 5_000; id++) {
+            Employee employee = store.getByEmail("e" + id + "@x.io");
+            if (id % 2 == 1) {
+                assertThat(employee).isNull();
+            } else {
+                assertThat(employee.getId()).isEqualTo(id);
+            }
+        }
+    }
+}
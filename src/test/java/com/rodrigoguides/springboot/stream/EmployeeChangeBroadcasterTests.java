@@ -0,0 +1,212 @@
+package com.rodrigoguides.springboot.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rodrigoguides.springboot.event.EmployeeBatchChangedEvent;
+import com.rodrigoguides.springboot.event.EmployeeChangedEvent;
+import com.rodrigoguides.springboot.model.Employee;
+import com.rodrigoguides.springboot.model.EmployeeChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeChangeBroadcasterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private EmployeeChangeBroadcaster broadcaster;
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private EmployeeChangeBroadcaster broadcaster(int bufferSize, int maxSubscribers) {
+        return new EmployeeChangeBroadcaster(new ObjectMapper(), meterRegistry, bufferSize, maxSubscribers, 2, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    private static EmployeeChangedEvent updated(long id) {
+        return new EmployeeChangedEvent(100L + id, EmployeeChangeType.UPDATED, id, Employee.builder()
+                .id(id)
+                .firstName("Rodrigo")
+                .lastName("Orellana")
+                .email("rodrigo.orelana@gmail.com")
+                .build());
+    }
+
+    //records what would be written to the response, optionally blocking like a client that stopped reading
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch received;
+
+        private final CountDownLatch unblocked;
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(int expectedFrames, CountDownLatch unblocked) {
+            this.received = new CountDownLatch(expectedFrames);
+            this.unblocked = unblocked;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                unblocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            //one frame per send, joined from the text parts SseEmitter would write one after the other
+            frames.add(builder.build().stream().map(data -> (String) data.getData()).collect(Collectors.joining()));
+            received.countDown();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+
+    //JUnit test for fan-out to every subscriber
+    @DisplayName("JUnit test for fan-out to every subscriber")
+    @Test
+    @Timeout(10)
+    public void givenSubscribers_whenEmployeeChanged_thenEverySubscriberReceivesEventsInOrder() throws InterruptedException {
+        //given - precondition or setup
+        broadcaster = broadcaster(16, 100);
+        RecordingEmitter first = new RecordingEmitter(3, new CountDownLatch(0));
+        RecordingEmitter second = new RecordingEmitter(3, new CountDownLatch(0));
+        broadcaster.subscribe(first);
+        broadcaster.subscribe(second);
+
+        //when - action or the behaviour we are going to test
+        broadcaster.onEmployeeChanged(updated(1L));
+        broadcaster.onEmployeeChanged(updated(2L));
+        broadcaster.onEmployeeChanged(new EmployeeChangedEvent(103L, EmployeeChangeType.DELETED, 3L, null));
+
+        //then - verify the output
+        first.received.await();
+        second.received.await();
+        assertThat(first.frames).isEqualTo(second.frames);
+        assertThat(first.frames.get(0)).startsWith("id:101\nevent:updated\ndata:{").contains("\"employeeId\":1").endsWith("}\n\n");
+        assertThat(first.frames.get(1)).startsWith("id:102\n").contains("\"employeeId\":2");
+        assertThat(first.frames.get(2)).startsWith("id:103\nevent:deleted\n").contains("\"employee\":null");
+    }
+
+    //JUnit test for streaming a bulk write
+    @DisplayName("JUnit test for streaming a bulk write")
+    @Test
+    @Timeout(10)
+    public void givenSubscriber_whenEmployeesChanged_thenReceiveOneBatchEvent() throws InterruptedException {
+        //given - precondition or setup
+        broadcaster = broadcaster(16, 100);
+        RecordingEmitter subscriber = new RecordingEmitter(2, new CountDownLatch(0));
+        broadcaster.subscribe(subscriber);
+
+        //when - action or the behaviour we are going to test
+        broadcaster.onEmployeesChanged(new EmployeeBatchChangedEvent(EmployeeChangeType.CREATED, List.of(1L, 2L, 3L), 101L, 103L));
+        broadcaster.onEmployeeChanged(updated(4L));
+
+        //then - verify the output
+        subscriber.received.await();
+        assertThat(subscriber.frames.get(0)).startsWith("id:103\nevent:batch\ndata:{")
+                .contains("\"type\":\"CREATED\"", "\"employeeIds\":[1,2,3]", "\"firstSeq\":101");
+        assertThat(subscriber.frames.get(1)).startsWith("id:104\nevent:updated\n");
+    }
+
+    //JUnit test for disconnecting a slow subscriber
+    @DisplayName("JUnit test for disconnecting a slow subscriber")
+    @Test
+    @Timeout(10)
+    public void givenSubscriberNotReading_whenBufferOverflows_thenSendResyncAndDisconnectOnlyThatSubscriber() throws InterruptedException {
+        //given - precondition or setup
+        broadcaster = broadcaster(2, 100);
+        CountDownLatch slowClient = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(2, slowClient);
+        RecordingEmitter fast = new RecordingEmitter(6, new CountDownLatch(0));
+        broadcaster.subscribe(slow);
+        broadcaster.subscribe(fast);
+
+        //when - action or the behaviour we are going to test
+        for (long id = 1; id <= 6; id++) {
+            broadcaster.onEmployeeChanged(updated(id));
+            //the fast client keeps up: it has read each event before the next one is published
+            while (fast.frames.size() < id) {
+                Thread.sleep(1);
+            }
+        }
+        slowClient.countDown();
+
+        //then - verify the output
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        //the resync cursor is the last change the slow client got
+        List<String> changes = slow.frames.subList(0, slow.frames.size() - 1);
+        long lastSeq = 100L + changes.size();
+        assertThat(changes.size()).isLessThan(6);
+        assertThat(slow.frames.get(changes.size())).isEqualTo("id:" + lastSeq + "\nevent:resync\ndata:{\"since\":" + lastSeq + "}\n\n");
+        fast.received.await();
+        assertThat(fast.frames).hasSize(6);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("employees.stream.slow.subscribers").count()).isEqualTo(1.0);
+    }
+
+    //JUnit test for dropping a subscriber whose write blocks
+    @DisplayName("JUnit test for dropping a subscriber whose write blocks")
+    @Test
+    @Timeout(10)
+    public void givenSubscriberWriteBlocked_whenWriteTimeoutExpires_thenDropItAndKeepStreamingToOthers() throws InterruptedException {
+        //given - precondition or setup
+        //a single dispatcher thread, the blocked write holds it
+        broadcaster = new EmployeeChangeBroadcaster(new ObjectMapper(), meterRegistry, 16, 100, 1, Duration.ofHours(1), Duration.ofMillis(100));
+        broadcaster.start();
+        CountDownLatch stuckClient = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter(1, stuckClient);
+        RecordingEmitter other = new RecordingEmitter(2, new CountDownLatch(0));
+        broadcaster.subscribe(stuck);
+        broadcaster.onEmployeeChanged(updated(1L));
+        broadcaster.subscribe(other);
+
+        //when - action or the behaviour we are going to test
+        broadcaster.onEmployeeChanged(updated(2L));
+        broadcaster.onEmployeeChanged(updated(3L));
+
+        //then - verify the output
+        //only gets a thread once the blocked write has expired
+        other.received.await();
+        assertThat(other.frames).hasSize(2);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("employees.stream.write.timeouts").count()).isEqualTo(1.0);
+        //the stream ends once the write returns, without the events queued behind it
+        stuckClient.countDown();
+        assertThat(stuck.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stuck.frames).hasSize(1);
+    }
+
+    //JUnit test for the subscriber limit
+    @DisplayName("JUnit test for the subscriber limit")
+    @Test
+    public void givenSubscriberLimitReached_whenSubscribe_thenReturnEmpty() {
+        //given - precondition or setup
+        broadcaster = broadcaster(16, 1);
+        broadcaster.subscribe(new SseEmitter());
+
+        //when - action or the behaviour we are going to test
+        boolean subscribed = broadcaster.subscribe(new SseEmitter()).isPresent();
+
+        //then - verify the output
+        assertThat(subscribed).isFalse();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+}